@@ -1,26 +1,29 @@
 package io.github.eng1group9;
 
-import java.util.List;
-
 import com.badlogic.gdx.ApplicationAdapter;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Color;
-import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.maps.tiled.TiledMap;
 import com.badlogic.gdx.math.Vector2;
 
 import io.github.eng1group9.entities.*;
 import io.github.eng1group9.systems.InputSystem;
 import io.github.eng1group9.systems.RenderingSystem;
 import io.github.eng1group9.systems.CollisionSystem;
+import io.github.eng1group9.systems.EntityBroadphase;
+import io.github.eng1group9.systems.LoadingSystem;
 import io.github.eng1group9.systems.ToastSystem;
 import io.github.eng1group9.systems.TriggerSystem;
 import io.github.eng1group9.systems.TimerSystem;
+import io.github.eng1group9.systems.TextureCache;
 
 /** {@link com.badlogic.gdx.ApplicationListener} implementation shared by all platforms. */
 public class Main extends ApplicationAdapter {
 
     boolean isFullscreen = false;
     static int gameState = 0;
+    /// -1 = Loading
     /// 0 = Not started
     /// 1 = Playing
     /// 2 = Paused
@@ -39,7 +42,9 @@ public class Main extends ApplicationAdapter {
     private static TimerSystem timerSystem = new TimerSystem();
     public boolean showCollision = false;
 
-    private List<Rectangle> worldCollision;
+    final static int IDLEFPS = 10; // The frame rate while the game is not being played, as nothing moves but the menus still need to respond.
+    private static boolean idle = false; // Wether the frame rate has been lowered to IDLEFPS.
+
     final static int LONGBOIBONUSAMOUNT = 201823;
     final static String TMXPATH = "World/testMap.tmx";
 
@@ -54,7 +59,7 @@ public class Main extends ApplicationAdapter {
     final Vector2 DEANSTARTPOS = new Vector2(32, 352); // Where the Dean begins the game, and returns to after catching the player.
     final float DEFAULTDEANSPEED = 100;
     final int DEANPUNISHMENT = 30; // The number of seconds the Dean adds to the timer.
-    final Character[] DEANPATH = { // The path the dean will take (D = Down, U = Up, L = Left, R = Right). The path will loop. 
+    final char[] DEANPATH = { // The path the dean will take (D = Down, U = Up, L = Left, R = Right). The path will loop. 
         'R', 'R', 'R', 'R', 'R', 'R', 'R', 'R', 'R', 'R', 'R', 'R', 'R', 'R', 'R', 'R', 'R', 'R', 'R',
         'D', 'D', 'D', 'D', 'D', 'D', 'D', 'D',
         'R', 'R', 'R',
@@ -71,26 +76,97 @@ public class Main extends ApplicationAdapter {
     public static RenderingSystem renderingSystem = new RenderingSystem();
     public static CollisionSystem collisionSystem = new CollisionSystem();
     public static InputSystem inputSystem = new InputSystem();
+    public static EntityBroadphase entityBroadphase = new EntityBroadphase();
 
     @Override
     public void create() {
-        renderingSystem.initWorld(TMXPATH, 480, 320);
-        collisionSystem.init(renderingSystem.getMapRenderer().getMap());
-        TriggerSystem.init(TMXPATH);
-        worldCollision = collisionSystem.getWorldCollision();
+        instance = this;
+        renderingSystem.initUI();
+        LoadingSystem.preload(TMXPATH, TiledMap.class);
+        LoadingSystem.preload(TextureCache.GAMEATLAS, TextureAtlas.class);
+        gameState = -1;
+    }
+
+    /**
+     * Load a little more each frame while showing the loading screen.
+     * Once everything has loaded, set up the world and game and show the start overlay.
+     */
+    private void load() {
+        if (LoadingSystem.update()) {
+            renderingSystem.initWorld(TMXPATH, 480, 320);
+            initGame(renderingSystem.getMapRenderer().getMap());
+            LoadingSystem.releasePreloaded(); // the world, player and dean now hold what they need.
+            gameState = 0;
+        }
+        else {
+            renderingSystem.renderLoadingScreen(960, 640, LoadingSystem.getProgress());
+        }
+    }
+
+    /**
+     * Set up the collision, triggers, player and dean for a loaded map.
+     * Kept seperate from the rendering setup so the game logic can be run without a window.
+     * @param map - The tilemap the game is played on.
+     */
+    void initGame(TiledMap map) {
+        collisionSystem.init(map);
+        registerTriggerHandlers();
+        TriggerSystem.init(map);
+        disposeEntities();
         player = new Player(PLAYERSTARTPOS, DEFAULTPLAYERSPEED);
         dean = new Dean(DEANSTARTPOS, DEFAULTDEANSPEED, DEANPATH);
+        entityBroadphase.clear();
+        entityBroadphase.addEntity(player);
+        entityBroadphase.add(dean.getReachRectangle(), dean, EntityBroadphase.REACH);
         togglePause();
         instance = this;
     }
 
+    /**
+     * Give back the textures held by the player and dean, before they are replaced or the game closes.
+     */
+    private static void disposeEntities() {
+        if (player != null) player.dispose();
+        if (dean != null) dean.dispose();
+    }
+
+    /**
+     * Set what each trigger in the map does.
+     */
+    private void registerTriggerHandlers() {
+        TriggerSystem.register(0, player -> winGame()); // open the main door
+        TriggerSystem.register(1, player -> player.giveChestRoomKey()); // Get the chest room key
+        TriggerSystem.register(2, player -> getScroll()); // Get the scroll
+        TriggerSystem.register(3, player -> dropSpikes()); // Standing by the switch
+        TriggerSystem.register(4, player -> checkForLongboi()); // Standing by the mouse hole
+        TriggerSystem.register(5, player -> player.giveExitKey()); // Standing by the chest
+        TriggerSystem.register(6, player -> openChestRoomDoor()); // Standing by the chest room door
+        TriggerSystem.register(7, player -> openExit()); // Standing by the exit
+        TriggerSystem.register(8, player -> player.giveRedPotion()); // Pickup red potion.
+    }
+
     @Override
     public void render() {
+        if (gameState == -1) {
+            load();
+            if (gameState == -1) return;
+        }
         inputSystem.handle(player);
         if (gameState == 1) logic();
+        setIdle(gameState != 1);
         draw();
     }
 
+    /**
+     * Lower the frame rate while the game is not being played, and put it back when it is.
+     * @param isIdle - Wether the game is idle (not started, paused, won or lost).
+     */
+    private static void setIdle(boolean isIdle) {
+        if (idle == isIdle) return;
+        idle = isIdle;
+        Gdx.graphics.setForegroundFPS(idle ? IDLEFPS : Gdx.graphics.getDisplayMode().refreshRate + 1); // the same limit the launcher uses.
+    }
+
     /**
      * Check if the player has the red potion.
      * If they do, show Long Boi and complete the hidden event. 
@@ -110,7 +186,8 @@ public class Main extends ApplicationAdapter {
     }
 
     public void draw() {
-        renderingSystem.draw(player, dean, showCollision, timerSystem.elapsedTime, worldCollision);
+        if (gameState == 1) renderingSystem.draw(player, dean, showCollision, timerSystem.elapsedTime, collisionSystem);
+        else renderingSystem.drawIdle(player, dean, showCollision, collisionSystem); // nothing is moving, so the last frame of the world is reused.
         switch (gameState) {
             case 0:
                 renderingSystem.renderStartOverlay(960, 640);
@@ -221,8 +298,10 @@ public class Main extends ApplicationAdapter {
     /**
      * Toggle wether the game shoudl be paused. 
      * This will freeze the player/dean, stop all game logic and display the pause overlay. 
+     * Does nothing before the player has been made, as there is nothing to freeze.
      */
     public static void togglePause() {
+        if (player == null) return;
         if (gameState == 2) {
             if (!playerCaught) {
                 player.unfreeze();
@@ -240,10 +319,12 @@ public class Main extends ApplicationAdapter {
     /**
      * Where the game process its logic each frame. 
      * It will not run if the game is paused. 
+     * Nothing here should create new objects unless an event happens, as garbage causes stutters (see MainAllocationTest).
      */
     public void logic() {
         timerSystem.tick();
         dean.nextMove();
+        entityBroadphase.update();
         checkDeanCatch();
         TriggerSystem.checkTouchTriggers(player);
         player.update();
@@ -251,9 +332,10 @@ public class Main extends ApplicationAdapter {
 
     /**
      * Checks if the dean has caught the player, and punishes them if he has by removing 50s from time left. 
+     * Uses the pairs found by the entity broadphase, so only a dean whose reach is overlapping the player is checked.
      */
     public void checkDeanCatch() {
-        if (dean.canReach(player) && !playerCaught) {
+        if (!playerCaught && entityBroadphase.isOverlapping(dean, EntityBroadphase.REACH, player, EntityBroadphase.HITBOX) && dean.canReach(player)) {
             startPlayerCatch();
         }
         else if (playerCaught) {
@@ -318,13 +400,22 @@ public class Main extends ApplicationAdapter {
         renderingSystem.resize(width, height);
     }
 
+    @Override
+    public void dispose() {
+        disposeEntities();
+        renderingSystem.dispose();
+        LoadingSystem.dispose();
+    }
+
     @Override
     public void pause() {
+        if (gameState == -1) return; // Still loading, the game has not started.
         togglePause();
     }
 
     @Override
     public void resume() {
+        if (gameState == -1) return;
         togglePause();
     }
 }
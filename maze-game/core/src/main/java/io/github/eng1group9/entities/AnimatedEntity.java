@@ -1,19 +1,20 @@
 package io.github.eng1group9.entities;
 
-import java.util.ArrayList;
-import java.util.List;
-
-import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 
 /**
  * An Entity which is animated.
- * Animations are stored in an ArrayList created automatially from a given spriteSheet.
+ * Animations are stored in an {@link AnimationSet} created automatially from a given spriteSheet,
+ * which is shared with every other entity using the same spriteSheet.
  * Each animation should be on a seperate row in the spriteSheet.
+ * How far through its animation an entity is comes from a clock shared by every entity (see advanceClock),
+ * so entities which are not drawn (e.g. off screen) cost nothing, and are at the right frame when they come back into view.
+ * Entities far from the player only pick a new frame every LODINTERVAL seconds.
  *
  * @param spriteSheetTexture - The texture contaning the frames laid out in a grid, which are then used to create the aniamtions.
  * @param frameNumbers - An array of integers which state how many frames are in each animation, values should match the number of sprites on each row of the spriteSheet.
@@ -21,20 +22,54 @@ import com.badlogic.gdx.math.Vector2;
  * @param tileHeight - How high each tile in the SpriteSheet is in pixels.
  */
 public class AnimatedEntity extends Entity{
-    private List<Animation<TextureRegion>> animations = new ArrayList<Animation<TextureRegion>>();
+    private static final float FRAMEINTERVAL = 0.25f;
+    private static final float LODDISTANCE = 400; // Entities further than this from the player pick new frames less often. Less than half the view's diagonal, so far entities can be on screen.
+    private static final float LODINTERVAL = 0.5f; // How often far entities pick a new frame, in seconds.
+    private static double clock = 0; // The time every animation is played against, in seconds. A double, so it keeps its precision however long the game runs.
+    private AnimationSet animations;
     private boolean paused = false;
-    private float frameInterval = 0.25f;
     private int currentAnimation = 0;
-    private float animationPlayTime = 0f;
+    private double clockOffset = clock; // What the clock said when the animation was at its start, while it is playing.
+    private double pausedPlayTime = 0; // How far through the animation it was when it was paused.
+    private TextureRegion shownFrame; // The frame last drawn by a far entity, reused until nextFramePick.
+    private int shownAnimation; // The animation shownFrame is from.
+    private double nextFramePick;
     
 
     public AnimatedEntity(Texture spriteSheetTexture, int[] frameNumbers, int tileWidth, int tileHeight) {
+        this(new TextureRegion(spriteSheetTexture), frameNumbers, tileWidth, tileHeight);
+    }
+
+    /**
+     * Create an animated entity from a sprite sheet packed into a texture atlas.
+     * @param spriteSheet - The region of the atlas contaning the frames laid out in a grid.
+     * @param frameNumbers - How many frames are in each animation (one per row).
+     * @param tileWidth - How wide each tile in the SpriteSheet is in pixels.
+     * @param tileHeight - How high each tile in the SpriteSheet is in pixels.
+     */
+    public AnimatedEntity(TextureRegion spriteSheet, int[] frameNumbers, int tileWidth, int tileHeight) {
         super(new Vector2(0,0), tileWidth, tileHeight);
-        TextureRegion[][] tmp = TextureRegion.split(spriteSheetTexture, tileWidth, tileHeight);
-        for (int i = 0; i < frameNumbers.length; i++) {
-            Animation<TextureRegion> nextAnimation = new Animation<>(frameInterval, tmp[i]);
-            animations.add(nextAnimation);
-        }
+        this.animations = AnimationSet.get(spriteSheet, frameNumbers, tileWidth, tileHeight, FRAMEINTERVAL);
+    }
+
+    /**
+     * Create an animated entity from a sprite sheet in the game atlas.
+     * The atlas is shared through the TextureCache, so spawning more entities does not load the sheet again.
+     * @param spriteSheetName - The name of the sprite sheet's region in the game atlas.
+     * @param frameNumbers - How many frames are in each animation (one per row).
+     * @param tileWidth - How wide each tile in the SpriteSheet is in pixels.
+     * @param tileHeight - How high each tile in the SpriteSheet is in pixels.
+     */
+    public AnimatedEntity(String spriteSheetName, int[] frameNumbers, int tileWidth, int tileHeight) {
+        super(new Vector2(0,0), tileWidth, tileHeight);
+        this.animations = AnimationSet.get(getAtlas().findRegion(spriteSheetName), frameNumbers, tileWidth, tileHeight, FRAMEINTERVAL);
+    }
+
+    /**
+     * @return The animations, shared with every entity using the same sprite sheet.
+     */
+    public AnimationSet getAnimations() {
+        return animations;
     }
 
     /**
@@ -53,6 +88,8 @@ public class AnimatedEntity extends Entity{
      * Will unpause the animation.
      */
     public void playAnimation() {
+        if (!paused) return;
+        clockOffset = clock - pausedPlayTime;
         paused = false;
     }
 
@@ -60,14 +97,31 @@ public class AnimatedEntity extends Entity{
      * Will pause the animation.
      */
     public void pauseAnimation() {
+        if (paused) return;
+        pausedPlayTime = clock - clockOffset;
         paused = true;
     }
 
+    /**
+     * Move every animation on, once per frame the world is drawn.
+     * @param delta - How many seconds have passed since the last frame.
+     */
+    public static void advanceClock(float delta) {
+        clock += delta;
+    }
+
+    /**
+     * @return How long the animation has been playing for, in seconds.
+     */
+    public float getPlayTime() {
+        return (float) (paused ? pausedPlayTime : clock - clockOffset);
+    }
+
     /**
      * @return the current frame of an animation being shown.
      */
     public TextureRegion getCurrentFrame() {
-        return animations.get(currentAnimation).getKeyFrame(animationPlayTime, true);
+        return animations.getFrame(currentAnimation, getPlayTime());
     }
 
     /**
@@ -76,13 +130,35 @@ public class AnimatedEntity extends Entity{
      */
     @Override
     public void draw(SpriteBatch batch) {
-        float delta = Gdx.graphics.getDeltaTime();
-        if (!paused) animationPlayTime += delta;
-        TextureRegion currentFrame = getCurrentFrame();
-        batch.draw(currentFrame, getX(), getY(), getWidth(), getHeight());
+        batch.draw(getCurrentFrame(), getX(), getY(), getWidth(), getHeight());
     }
 
-    
-
+    /**
+     * Draw the entity if it is on screen, skipping it entirely if not.
+     * Entities far from the focus only pick a new frame every LODINTERVAL seconds.
+     * @param batch The Batch to draw too.
+     * @param view - The part of the world on screen.
+     * @param focusX - The x co-ordinate of the player's centre.
+     * @param focusY - The y co-ordinate of the player's centre.
+     * @return Wether the entity was drawn.
+     */
+    public boolean draw(Batch batch, Rectangle view, float focusX, float focusY) {
+        float x = getX();
+        float y = getY();
+        float width = getWidth();
+        float height = getHeight();
+        if (x > view.x + view.width || x + width < view.x || y > view.y + view.height || y + height < view.y) return false;
 
+        float dx = x + width / 2f - focusX;
+        float dy = y + height / 2f - focusY;
+        boolean far = dx * dx + dy * dy > LODDISTANCE * LODDISTANCE;
+        // changing direction or stopping is shown straight away, even when far.
+        if (!far || shownFrame == null || shownAnimation != currentAnimation || paused || clock >= nextFramePick) {
+            shownFrame = getCurrentFrame();
+            shownAnimation = currentAnimation;
+            nextFramePick = clock + LODINTERVAL;
+        }
+        batch.draw(shownFrame, x, y, width, height);
+        return true;
+    }
 }
@@ -0,0 +1,107 @@
+package io.github.eng1group9.entities;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+
+/**
+ * The frames of every animation cut from one sprite sheet, shared by every entity using that sheet.
+ * Each animation is a row of the sheet, and all the frames are kept in one array with each animation's first frame worked out up front,
+ * so finding the frame to draw is a division and an array lookup.
+ * Sets are cached by sheet and layout, so the sheet is only split once however many entities use it (e.g. a crowd of deans).
+ * The {@link io.github.eng1group9.systems.LoadingSystem} forgets the sets for a texture when it disposes the texture.
+ * A set never changes after it is made, so sharing it is safe.
+ */
+public final class AnimationSet {
+    private static final Map<Texture, Map<String, AnimationSet>> cache = new IdentityHashMap<>(); // By texture, then by where the sheet is and its layout.
+
+    private final TextureRegion[] frames; // Every frame, one animation after another.
+    private final int[] firstFrame; // Where each animation starts in frames.
+    private final int[] frameCount; // How many frames each animation has.
+    private final float frameInterval; // How long each frame is shown for, in seconds.
+
+    private AnimationSet(TextureRegion spriteSheet, int[] frameNumbers, int tileWidth, int tileHeight, float frameInterval) {
+        TextureRegion[][] tiles = spriteSheet.split(tileWidth, tileHeight);
+        this.firstFrame = new int[frameNumbers.length];
+        this.frameCount = new int[frameNumbers.length];
+        int total = 0;
+        for (int i = 0; i < frameNumbers.length; i++) {
+            if (i >= tiles.length || frameNumbers[i] < 1 || frameNumbers[i] > tiles[i].length) {
+                throw new IllegalArgumentException("Animation " + i + " needs " + frameNumbers[i] + " frames, which are not in the sprite sheet.");
+            }
+            firstFrame[i] = total;
+            frameCount[i] = frameNumbers[i];
+            total += frameNumbers[i];
+        }
+        this.frames = new TextureRegion[total];
+        for (int i = 0; i < frameNumbers.length; i++) {
+            System.arraycopy(tiles[i], 0, frames, firstFrame[i], frameCount[i]);
+        }
+        this.frameInterval = frameInterval;
+    }
+
+    /**
+     * Get the shared set of animations for a sprite sheet, splitting the sheet if this is the first time it is used with this layout.
+     * @param spriteSheet - The region contaning the frames laid out in a grid, one animation per row.
+     * @param frameNumbers - How many frames are in each animation (one per row).
+     * @param tileWidth - How wide each tile in the SpriteSheet is in pixels.
+     * @param tileHeight - How high each tile in the SpriteSheet is in pixels.
+     * @param frameInterval - How long each frame is shown for, in seconds.
+     * @return The animations.
+     * @throws IllegalArgumentException If the sheet does not have enough frames for the layout.
+     */
+    public static AnimationSet get(TextureRegion spriteSheet, int[] frameNumbers, int tileWidth, int tileHeight, float frameInterval) {
+        Map<String, AnimationSet> sheets = cache.get(spriteSheet.getTexture());
+        if (sheets == null) {
+            sheets = new HashMap<>();
+            cache.put(spriteSheet.getTexture(), sheets);
+        }
+        String key = spriteSheet.getRegionX() + "," + spriteSheet.getRegionY() + "," + spriteSheet.getRegionWidth() + "," + spriteSheet.getRegionHeight()
+            + " " + Arrays.toString(frameNumbers) + " " + tileWidth + "x" + tileHeight + " " + frameInterval;
+        AnimationSet set = sheets.get(key);
+        if (set == null) {
+            set = new AnimationSet(spriteSheet, frameNumbers, tileWidth, tileHeight, frameInterval);
+            sheets.put(key, set);
+        }
+        return set;
+    }
+
+    /**
+     * Forget every set cut from a texture, e.g. once it has been disposed.
+     * Entities already using the sets can carry on, but new entities will split the sheet again.
+     * @param texture - The texture the sheets are in.
+     */
+    public static void forget(Texture texture) {
+        cache.remove(texture);
+    }
+
+    /**
+     * Forget every set, e.g. when every texture has been disposed.
+     */
+    public static void forgetAll() {
+        cache.clear();
+    }
+
+    /**
+     * @param animation - Which animation (row of the sheet).
+     * @param playTime - How long the animation has been playing, in seconds. It loops.
+     * @return The frame to show.
+     */
+    public TextureRegion getFrame(int animation, float playTime) {
+        return frames[firstFrame[animation] + (int) (playTime / frameInterval) % frameCount[animation]];
+    }
+
+    public int getAnimationCount() { return frameCount.length; }
+
+    /**
+     * @param animation - Which animation (row of the sheet).
+     * @return How many frames it has.
+     */
+    public int getFrameCount(int animation) { return frameCount[animation]; }
+
+    public float getFrameInterval() { return frameInterval; }
+}
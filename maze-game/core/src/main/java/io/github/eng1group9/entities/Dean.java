@@ -1,11 +1,12 @@
 package io.github.eng1group9.entities;
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 
+import io.github.eng1group9.systems.CollisionSystem;
+
 /**
  * This is the Dean, the games negative event and antagonist. 
- * They will not collide with the walls, but will catch the player if they get too close.
+ * They collide with walls, doors and spikes like the player, and will catch the player if they get too close.
  * @param startPos - Where the dean will start. 
  * @param speed - How fast the dean will move. 
  * @param path - The deans path, it will follow this on loop. 
@@ -14,12 +15,12 @@ public class Dean extends MovingEntity {
     private int reach = 3; // size of dean hitbox in tiles (3x3)
     private int moveNum = 0;
     private float nextTileDistance = 32;
-    private Character[] path;
+    private char[] path;
     private Rectangle reachRectangle;
     final Vector2 STARTPOS;
 
-    public Dean(Vector2 startPos, float speed, Character[] path) {
-        super(new Texture("Characters/deanAnimations.png"), new int[] {4, 4,4,4} , 32, 32, speed);
+    public Dean(Vector2 startPos, float speed, char[] path) {
+        super("deanAnimations", new int[] {4, 4,4,4} , 32, 32, speed);
         setScale(2);
         setPosition(startPos);
         setHitbox(new Rectangle());
@@ -28,6 +29,7 @@ public class Dean extends MovingEntity {
         reachRectangle.setPosition(startPos.x -32, startPos.y -42);
         reachRectangle.setSize(reach * 32);
         setHitbox(new Rectangle());
+        setCollisionCategory(CollisionSystem.DEAN);
         this.path = path;
         STARTPOS = startPos;
     }
@@ -35,10 +37,11 @@ public class Dean extends MovingEntity {
     /**
      * Move the dean along its set path.
      * It will move in a given direction until it has moved one tile, then look at the next direction. 
+     * It never moves past the end of the current tile, so a long frame cannot push it off its path.
      */
     public void nextMove() {
-        Character direction = getNextDirection();
-        float distance = move(direction);
+        char direction = getNextDirection();
+        float distance = move(direction, nextTileDistance);
         nextTileDistance -= distance;
         if (!isFrozen()) updateAnimation(direction);
         reachRectangle.setPosition(getX() - 32, getY() - 42);
@@ -58,7 +61,7 @@ public class Dean extends MovingEntity {
     /**
      * @return The direction the dean should move in next. 
      */
-    private Character getNextDirection() {
+    private char getNextDirection() {
         if (moveNum >= path.length) {
             moveNum = 0;
             setPosition(STARTPOS);
@@ -70,7 +73,7 @@ public class Dean extends MovingEntity {
      * Update the dean's animation based on its current direction. 
      * @param direction - The direction the dean is moving.
      */
-    private void updateAnimation(Character direction) {
+    private void updateAnimation(char direction) {
         switch (direction) {
                 case 'U':
                     changeAnimation(1);
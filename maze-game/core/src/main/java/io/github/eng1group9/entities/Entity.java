@@ -2,9 +2,14 @@ package io.github.eng1group9.entities;
 import com.badlogic.gdx.graphics.*;
 import com.badlogic.gdx.graphics.g2d.Sprite;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 
+import io.github.eng1group9.systems.CollisionSystem;
+import io.github.eng1group9.systems.TextureCache;
+
 /**
 * An Entity is the parent class for any game object with a position and collision.
 *
@@ -13,22 +18,28 @@ import com.badlogic.gdx.math.Vector2;
 * @param width The width of the entity.
 * @param height The height of the entity.
 *
+* Textures come from the TextureCache, so call dispose() when the entity is no longer needed.
 *
 * @author Mat.
 *
 */
 public class Entity {
 
-    private Texture missingTexture = new Texture("missingTexture.png"); // Used if no texture is avalible for the entity. 
+    private TextureAtlas atlas = TextureCache.acquireAtlas(TextureCache.GAMEATLAS);
+    private TextureRegion missingTexture = atlas.findRegion("missingTexture"); // Used if no texture is avalible for the entity. 
     private Sprite sprite = new Sprite(missingTexture);
+    private String texturePath; // The texture this entity acquired from the TextureCache, if any.
+    private boolean disposed = false;
     private Rectangle hitbox = new Rectangle(); 
     private boolean canCollide = true; // wether the entity will collide with other entitys / rectangles.
+    private int collisionCategory = CollisionSystem.ENTITY; // What this entity is, as CollisionSystem category bits.
+    private int collisionMask = CollisionSystem.ALL; // The categories of collision this entity is stopped by.
     private float scale = 1;
     private float width;
     private float height;
 
     public Entity(Texture texture, Vector2 startPosition, float width, float height) {
-        sprite.setTexture(texture);
+        sprite.setRegion(texture);
         this.width = width;
         this.height = height;
         sprite.setSize(width, height);
@@ -36,6 +47,18 @@ public class Entity {
         hitbox.set(startPosition.x + width, startPosition.y + height, width,    16);
     }
 
+    /**
+     * Create an entity using a texture from the TextureCache, which is released when the entity is disposed.
+     * @param texturePath - The path to the image.
+     * @param startPosition - Where the entity will begin in game.
+     * @param width - The width of the entity.
+     * @param height - The height of the entity.
+     */
+    public Entity(String texturePath, Vector2 startPosition, float width, float height) {
+        this(TextureCache.acquireTexture(texturePath), startPosition, width, height);
+        this.texturePath = texturePath;
+    }
+
     public Entity(Vector2 startPosition, float width, float height) {
         sprite.setSize(width, height);
         sprite.setPosition(startPosition.x, startPosition.y);
@@ -68,6 +91,15 @@ public class Entity {
         return new Vector2(sprite.getX(), sprite.getY());
     }
 
+    /**
+     * Copy the current position of the entity into an existing Vector2D, to avoid creating a new one each frame.
+     * @param out - The vector to store the position in.
+     * @return The same vector, for chaining.
+     */
+    public Vector2 getPosition(Vector2 out) {
+        return out.set(sprite.getX(), sprite.getY());
+    }
+
     /**
      * Set the x co-ordinate of the entity. 
      * @param x - The new x co-ordinate. 
@@ -134,7 +166,37 @@ public class Entity {
     * @return wether this entity collides with another.
     */
     public boolean isColliding(Entity other)  {
-        return other.getHitbox().contains(hitbox) && canCollide && other.hasCollision();
+        return (collisionMask & other.getCollisionCategory()) != 0 && other.getHitbox().contains(hitbox) && canCollide && other.hasCollision();
+    }
+
+    /**
+     * @return What this entity is, as CollisionSystem category bits (e.g. CollisionSystem.PLAYER).
+     */
+    public int getCollisionCategory() {
+        return collisionCategory;
+    }
+
+    /**
+     * Set what this entity is, so other entities can choose wether to collide with it.
+     * @param category - CollisionSystem category bits.
+     */
+    public void setCollisionCategory(int category) {
+        collisionCategory = category;
+    }
+
+    /**
+     * @return The categories of collision this entity is stopped by.
+     */
+    public int getCollisionMask() {
+        return collisionMask;
+    }
+
+    /**
+     * Set which categories of collision this entity is stopped by, e.g. CollisionSystem.WALL | CollisionSystem.DOOR.
+     * @param mask - CollisionSystem category bits.
+     */
+    public void setCollisionMask(int mask) {
+        collisionMask = mask;
     }
 
     public float distanceTo(Entity other) {
@@ -159,7 +221,25 @@ public class Entity {
     }
 
     public void setTexture(Texture newTexture) {
-        sprite.setTexture(newTexture);
+        sprite.setRegion(newTexture);
+    }
+
+    /**
+     * @return The shared game atlas, which this entity holds until it is disposed.
+     */
+    protected TextureAtlas getAtlas() {
+        return atlas;
+    }
+
+    /**
+     * Give back the textures this entity acquired from the TextureCache.
+     * Safe to call more than once.
+     */
+    public void dispose() {
+        if (disposed) return;
+        disposed = true;
+        if (texturePath != null) TextureCache.releaseTexture(texturePath);
+        TextureCache.releaseAtlas(TextureCache.GAMEATLAS);
     }
 
     /**
@@ -2,6 +2,8 @@ package io.github.eng1group9.entities;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Texture;
 
+import io.github.eng1group9.systems.CollisionSystem;
+
 /**
  * An animated entity which can move. This class handles speed and collision. 
  * @param spriteSheetTexture - The texture contaning the frames laid out in a grid, which are then used to create the aniamtions.
@@ -12,6 +14,8 @@ import com.badlogic.gdx.graphics.Texture;
  */
 public class MovingEntity extends AnimatedEntity {
 
+    private static final float MAXDELTA = 0.5f; // Longer frames (e.g. dragging the window) are cut short, so entities do not jump across the map.
+
     private float speed = 0;
     private boolean frozen = false;
     
@@ -20,6 +24,11 @@ public class MovingEntity extends AnimatedEntity {
         this.speed = speed;
     }
 
+    public MovingEntity(String spriteSheetName, int[] frameNumbers, int tileWidth, int tileHeight, float speed) {
+        super(spriteSheetName, frameNumbers, tileWidth, tileHeight);
+        this.speed = speed;
+    }
+
     /**
      * Update the speed of the entity. 
      * @param newSpeed - How fast the entity will now move.
@@ -36,39 +45,63 @@ public class MovingEntity extends AnimatedEntity {
     }
 
     /**
-     * Moves the entity in a given direction provided it wont collide with anything and . 
+     * Moves the entity in a given direction, as far as it can go before hitting collision. 
      * @param direction The direction as either 'U' 'D' 'L' or'R' 
-     * @param collisionRectangles A list of rectangles which the entity cannot move into.
+     * @return How far the entity moved. 
      */
-    public float move(Character direction){
+    public float move(char direction){
+        return move(direction, Float.MAX_VALUE);
+    }
+
+    /**
+     * Moves the entity in a given direction, as far as it can go before hitting collision. 
+     * @param direction The direction as either 'U' 'D' 'L' or'R' 
+     * @param maxDistance The furthest the entity may move this frame. 
+     * @return How far the entity moved. 
+     */
+    public float move(char direction, float maxDistance){
         if (!frozen) {
             float delta = Gdx.graphics.getDeltaTime();
-            if (delta > 0.1) delta = 0;
-            float distance = delta * speed;
-            float newX = getX();
-            float newY = getY();
+            if (delta > MAXDELTA) delta = MAXDELTA;
+            float distance = Math.min(delta * speed, maxDistance);
             switch (direction) {
                 case 'U':
-                    newY += distance;
-                    break;
+                    return moveBy(0, distance);
                 case 'D':
-                    newY -= distance;
-                    break;
+                    return moveBy(0, -distance);
                 case 'L':
-                    newX-= distance;
-                    break;
+                    return moveBy(-distance, 0);
                 case 'R':
-                    newX += distance;
-                    break;
-            }
-            if (io.github.eng1group9.Main.collisionSystem.safeToMove(newX, newY, getHitbox())) {
-                setPosition(newX, newY);
-                return distance;
+                    return moveBy(distance, 0);
             }
         }
         return 0;
     }
 
+    /**
+     * Move the entity by an amount, sweeping its hitbox so it cannot pass through thin walls after a long frame.
+     * If it hits collision it stops against it.
+     * Only collision in the entity's collision mask can stop it, and collision it already overlaps does not stop it, so it can walk out.
+     * @param dx - How far to move in x.
+     * @param dy - How far to move in y.
+     * @return How far the entity moved. 
+     */
+    public float moveBy(float dx, float dy) {
+        CollisionSystem collisionSystem = io.github.eng1group9.Main.collisionSystem;
+        float x = getX();
+        float y = getY();
+        int mask = getCollisionMask();
+        float timeOfImpact = collisionSystem.sweep(x, y, getHitbox(), dx, dy, mask);
+        // The sweep never moves into collision the entity was clear of, so the end needs no further check.
+        float newX = x + dx * timeOfImpact;
+        float newY = y + dy * timeOfImpact;
+        if (newX == x && newY == y) return 0;
+        setPosition(newX, newY);
+        float movedX = newX - x;
+        float movedY = newY - y;
+        return (float) Math.sqrt(movedX * movedX + movedY * movedY);
+    }
+
  
     /**
      * Prevent the entity from moving, and pause their animation.
@@ -1,9 +1,9 @@
 package io.github.eng1group9.entities;
 
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.math.Vector2;
 
+import io.github.eng1group9.systems.CollisionSystem;
 import io.github.eng1group9.systems.RenderingSystem;
 import io.github.eng1group9.systems.ToastSystem;
 
@@ -21,9 +21,10 @@ public class Player extends MovingEntity {
     private boolean invisibilityWarningGiven = true;
 
     public Player(Vector2 startPos, float speed) {
-        super(new Texture("Characters/playerAnimations.png"), new int[] {4, 4, 4, 4, 4, 4, 4, 4} , 32, 32, speed);
+        super("playerAnimations", new int[] {4, 4, 4, 4, 4, 4, 4, 4} , 32, 32, speed);
         setPosition(startPos);
         setScale(2);
+        setCollisionCategory(CollisionSystem.PLAYER);
     }
 
     /**
@@ -92,7 +93,7 @@ public class Player extends MovingEntity {
      * @param direction The direction to move (D = Down, U = Up, L = Left, R = Right).
      */
     @Override
-    public float move(Character direction) {
+    public float move(char direction) {
         int animationOffset = 0;
         if (!isVisible()) animationOffset = 4;
         switch (direction) {
@@ -0,0 +1,207 @@
+package io.github.eng1group9.systems;
+
+import java.util.List;
+
+import com.badlogic.gdx.math.Rectangle;
+
+/**
+ * A packed bitset with one bit per cell of the world, rasterized from the collision rectangles.
+ * Two masks are kept:
+ * - partial: some collision rectangle overlaps the cell.
+ * - solid: one collision rectangle covers the whole cell.
+ * A hitbox which touches no partial cells cannot be colliding, and one which reaches into a solid cell must be,
+ * so most checks are answered with a few word reads. Anything else has to be checked against the rectangles.
+ */
+public class CollisionBitmap {
+    public static final int CLEAR = 0; // Definitely not colliding.
+    public static final int BLOCKED = 1; // Definitely colliding.
+    public static final int UNKNOWN = 2; // Partly covered cells, the rectangles must be checked.
+
+    private static final float EPSILON = 0.001f; // Keeps rounding errors on cell edges on the safe side.
+
+    private final float originX;
+    private final float originY;
+    private final float cellSize;
+    private final int columns;
+    private final int rows;
+    private final long[] partial;
+    private final long[] solid;
+
+    /**
+     * Create an empty bitmap covering the given area.
+     * @param originX - The x co-ordinate of the bottom left of the bitmap.
+     * @param originY - The y co-ordinate of the bottom left of the bitmap.
+     * @param width - How wide the area covered by the bitmap is.
+     * @param height - How high the area covered by the bitmap is.
+     * @param cellSize - The width and height of each cell.
+     */
+    public CollisionBitmap(float originX, float originY, float width, float height, float cellSize) {
+        this.originX = originX;
+        this.originY = originY;
+        this.cellSize = cellSize;
+        this.columns = Math.max(1, (int) Math.ceil(width / cellSize));
+        this.rows = Math.max(1, (int) Math.ceil(height / cellSize));
+        int words = (columns * rows + 63) / 64;
+        this.partial = new long[words];
+        this.solid = new long[words];
+    }
+
+    /**
+     * Mark the cells covered by a rectangle.
+     * @param rectangle - The collision rectangle to add.
+     */
+    public void rasterize(Rectangle rectangle) {
+        rasterize(rectangle, 0, columns - 1, 0, rows - 1);
+    }
+
+    /**
+     * Mark the cells covered by a rectangle, only changing cells in the given range.
+     * @param rectangle - The collision rectangle to add.
+     * @param minColumn - The first column which may be changed.
+     * @param maxColumn - The last column which may be changed.
+     * @param minRow - The first row which may be changed.
+     * @param maxRow - The last row which may be changed.
+     */
+    private void rasterize(Rectangle rectangle, int minColumn, int maxColumn, int minRow, int maxRow) {
+        if (rectangle.width <= 0 || rectangle.height <= 0) return; // can never overlap anything.
+        int firstColumn = Math.max(minColumn, clampColumn(floorCell(rectangle.x - originX - EPSILON)));
+        int lastColumn = Math.min(maxColumn, clampColumn(ceilCell(rectangle.x + rectangle.width - originX + EPSILON) - 1));
+        int firstRow = Math.max(minRow, clampRow(floorCell(rectangle.y - originY - EPSILON)));
+        int lastRow = Math.min(maxRow, clampRow(ceilCell(rectangle.y + rectangle.height - originY + EPSILON) - 1));
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                setBit(partial, row * columns + column);
+            }
+        }
+
+        // Cells lying completely inside the rectangle. These are not clamped, as cells off the edge are not stored.
+        int solidFirstColumn = Math.max(minColumn, ceilCell(rectangle.x - originX + EPSILON));
+        int solidLastColumn = Math.min(maxColumn, floorCell(rectangle.x + rectangle.width - originX - EPSILON) - 1);
+        int solidFirstRow = Math.max(minRow, ceilCell(rectangle.y - originY + EPSILON));
+        int solidLastRow = Math.min(maxRow, floorCell(rectangle.y + rectangle.height - originY - EPSILON) - 1);
+        for (int row = solidFirstRow; row <= solidLastRow; row++) {
+            for (int column = solidFirstColumn; column <= solidLastColumn; column++) {
+                setBit(solid, row * columns + column);
+            }
+        }
+    }
+
+    /**
+     * Clear the cells around an area, then mark them again from the rectangles that are left.
+     * Used when a collision rectangle is removed, so only the cells it covered are rebuilt.
+     * @param area - The area which has changed.
+     * @param remaining - The collision rectangles that may overlap the area.
+     */
+    public void rebuild(Rectangle area, List<Rectangle> remaining) {
+        int minColumn = clampColumn(floorCell(area.x - originX - EPSILON));
+        int maxColumn = clampColumn(ceilCell(area.x + area.width - originX + EPSILON) - 1);
+        int minRow = clampRow(floorCell(area.y - originY - EPSILON));
+        int maxRow = clampRow(ceilCell(area.y + area.height - originY + EPSILON) - 1);
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                clearBit(partial, row * columns + column);
+                clearBit(solid, row * columns + column);
+            }
+        }
+        for (int i = 0; i < remaining.size(); i++) {
+            rasterize(remaining.get(i), minColumn, maxColumn, minRow, maxRow);
+        }
+    }
+
+    /**
+     * Check a hitbox against the bitmap.
+     * @param hitbox - The hitbox to check.
+     * @return CLEAR, BLOCKED or UNKNOWN.
+     */
+    public int test(Rectangle hitbox) {
+        int minColumn = floorCell(hitbox.x - originX - EPSILON);
+        int maxColumn = Math.max(minColumn, ceilCell(hitbox.x + hitbox.width - originX + EPSILON) - 1);
+        int minRow = floorCell(hitbox.y - originY - EPSILON);
+        int maxRow = Math.max(minRow, ceilCell(hitbox.y + hitbox.height - originY + EPSILON) - 1);
+        if (maxColumn < 0 || maxRow < 0 || minColumn >= columns || minRow >= rows) return CLEAR; // nothing is stored off the bitmap.
+        minColumn = clampColumn(minColumn);
+        maxColumn = clampColumn(maxColumn);
+        minRow = clampRow(minRow);
+        maxRow = clampRow(maxRow);
+
+        boolean anyPartial = false;
+        for (int row = minRow; row <= maxRow && !anyPartial; row++) {
+            anyPartial = anyBitSet(partial, row, minColumn, maxColumn);
+        }
+        if (!anyPartial) return CLEAR;
+
+        // Only use cells the hitbox properly reaches into, so touching the edge of a solid cell is not a collision.
+        if (hitbox.width > 2 * EPSILON && hitbox.height > 2 * EPSILON) {
+            int innerMinColumn = Math.max(0, floorCell(hitbox.x - originX + EPSILON));
+            int innerMaxColumn = Math.min(columns - 1, ceilCell(hitbox.x + hitbox.width - originX - EPSILON) - 1);
+            int innerMinRow = Math.max(0, floorCell(hitbox.y - originY + EPSILON));
+            int innerMaxRow = Math.min(rows - 1, ceilCell(hitbox.y + hitbox.height - originY - EPSILON) - 1);
+            if (innerMinColumn <= innerMaxColumn) {
+                for (int row = innerMinRow; row <= innerMaxRow; row++) {
+                    if (anyBitSet(solid, row, innerMinColumn, innerMaxColumn)) return BLOCKED;
+                }
+            }
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * Can be used for pathfinding, treating any cell with collision in it as a wall.
+     * @param column - The column of the cell.
+     * @param row - The row of the cell.
+     * @return True if any collision overlaps the cell.
+     */
+    public boolean isCellBlocked(int column, int row) {
+        if (column < 0 || row < 0 || column >= columns || row >= rows) return false;
+        int bit = row * columns + column;
+        return (partial[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    /**
+     * @return True if any bit from minColumn to maxColumn (inclusive) on a row is set, reading whole words at a time.
+     */
+    private boolean anyBitSet(long[] mask, int row, int minColumn, int maxColumn) {
+        int first = row * columns + minColumn;
+        int last = row * columns + maxColumn;
+        int firstWord = first >>> 6;
+        int lastWord = last >>> 6;
+        long firstMask = -1L << first; // shifts only use the bottom 6 bits, so this is the bit within the word.
+        long lastMask = -1L >>> (63 - (last & 63));
+        if (firstWord == lastWord) return (mask[firstWord] & firstMask & lastMask) != 0;
+        if ((mask[firstWord] & firstMask) != 0) return true;
+        for (int word = firstWord + 1; word < lastWord; word++) {
+            if (mask[word] != 0) return true;
+        }
+        return (mask[lastWord] & lastMask) != 0;
+    }
+
+    private static void setBit(long[] mask, int bit) {
+        mask[bit >>> 6] |= 1L << bit;
+    }
+
+    private static void clearBit(long[] mask, int bit) {
+        mask[bit >>> 6] &= ~(1L << bit);
+    }
+
+    private int floorCell(float offset) {
+        return (int) Math.floor(offset / cellSize);
+    }
+
+    private int ceilCell(float offset) {
+        return (int) Math.ceil(offset / cellSize);
+    }
+
+    private int clampColumn(int column) {
+        return Math.max(0, Math.min(columns - 1, column));
+    }
+
+    private int clampRow(int row) {
+        return Math.max(0, Math.min(rows - 1, row));
+    }
+
+    public int getColumns() { return columns; }
+
+    public int getRows() { return rows; }
+
+    public float getCellSize() { return cellSize; }
+}
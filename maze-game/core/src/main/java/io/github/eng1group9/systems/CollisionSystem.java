@@ -7,74 +7,506 @@ import com.badlogic.gdx.maps.objects.RectangleMapObject;
 import com.badlogic.gdx.maps.tiled.TiledMap;
 import com.badlogic.gdx.math.Rectangle;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Handles player collision. 
+ * Every collision rectangle is rasterized into a {@link CollisionBitmap} which answers most checks without looking at any rectangles.
+ * Walls which never change are kept in a {@link StaticRTree}, which copes with maps mixing huge and tiny rectangles.
+ * Named rectangles (doors, spikes) can be removed and added back, so they are kept in a {@link SpatialHashGrid}
+ * and indexed by name instead.
+ * Every rectangle has a category, set with a "category" property in the TMX (e.g. "door" or "wall,hazard"), walls by default.
+ * Entities have a mask of the categories they collide with, so e.g. a ghost could pass through doors but not walls.
+ * Other code can be told when collision is removed and added back with a {@link CollisionListener}.
  */
 public class CollisionSystem {
-    private List<Rectangle> worldCollision;
-    private TiledMap map;
+
+    /**
+     * Gets told when the collision in the world changes.
+     * Every method does nothing by default, so only the ones needed have to be written.
+     */
+    public interface CollisionListener {
+        /**
+         * Run after collision has been loaded from a map, when every rectangle is new.
+         */
+        default void onLoaded() {}
+
+        /**
+         * Run when a rectangle is taken out of the world, e.g. a door opening.
+         * @param rectangle - The rectangle which was removed.
+         */
+        default void onRemoved(Rectangle rectangle) {}
+
+        /**
+         * Run when a rectangle is put back into the world.
+         * @param rectangle - The rectangle which was added.
+         */
+        default void onAdded(Rectangle rectangle) {}
+    }
+
+    public static final int WALL = 1; // Categories, each is one bit so they can be combined into masks.
+    public static final int DOOR = 1 << 1;
+    public static final int HAZARD = 1 << 2;
+    public static final int PLAYER = 1 << 3;
+    public static final int DEAN = 1 << 4;
+    public static final int ENTITY = 1 << 5; // Any other entity.
+    public static final int ALL = -1; // A mask containing every category.
+
+    private static final float GRIDCELLSIZE = 64; // 2x2 tiles (after scaling), roughly the size of an entity.
+    private static final float BITMAPCELLSIZE = 16; // Half a tile (after scaling), as most walls do not line up with tiles.
+    private static final float SWEEPSKIN = 0.01f; // How far short of a wall a sweep stops, so rounding never leaves an entity inside it.
+
+    private List<Rectangle> worldCollision; // The collision currently in the world.
+    private Map<Rectangle, Integer> worldCollisionIndex; // Where each active rectangle is in worldCollision, by identity.
+    private Map<String, List<Rectangle>> namedCollision; // Every named rectangle, wether it is active or not.
+    private Map<Rectangle, Integer> collisionCategory; // The category of every rectangle, by identity.
+    private int usedCategories; // Every category that some rectangle is in.
+    private StaticRTree staticCollision; // Unnamed rectangles, which are never removed.
+    private SpatialHashGrid<Rectangle> collisionGrid; // Named rectangles, which can be removed and added back.
+    private CollisionBitmap collisionBitmap;
+    private final Rectangle testHitbox = new Rectangle(); // Reused by safeToMove so moving does not create garbage.
+    private final Rectangle sweepArea = new Rectangle(); // Reused by sweep.
+    private final List<Rectangle> sweepCollision = new ArrayList<>(); // Reused by sweep.
+    private final Rectangle changedArea = new Rectangle(); // Reused when collision is removed.
+    private final List<Rectangle> nearbyCollision = new ArrayList<>(); // Reused when collision is removed.
+    private int[] batchPending = new int[64]; // Reused by the batch safeToMove, grows if needed.
+    private final List<CollisionListener> listeners = new ArrayList<>();
 
     /**
      * Take a tilemap and setup a list of collision rectangles using the "Collision" layer. 
+     * The rectangles are copied, so the map is not changed and can be shared.
      * @param map - The tilemap (.tmx file). 
+     * @throws IllegalArgumentException If a rectangle has a category that does not exist.
      */
     public void init(TiledMap map) {
-        this.map = map;
         MapLayer collisionLayer = map.getLayers().get("Collision");
         MapObjects collisionObjects = collisionLayer.getObjects();
-        worldCollision = new LinkedList<>();
+        worldCollision = new ArrayList<>();
+        worldCollisionIndex = new IdentityHashMap<>();
+        namedCollision = new HashMap<>();
+        collisionCategory = new IdentityHashMap<>();
+        usedCategories = 0;
+        List<Rectangle> staticRectangles = new ArrayList<>();
         for (MapObject mapObject : collisionObjects) {
-            Rectangle nextRectangle = ((RectangleMapObject) mapObject).getRectangle();
-            nextRectangle.set(nextRectangle.x * 2,nextRectangle.y * 2, nextRectangle.width * 2, nextRectangle.height * 2);
+            Rectangle mapRectangle = ((RectangleMapObject) mapObject).getRectangle();
+            Rectangle nextRectangle = new Rectangle(mapRectangle.x * 2, mapRectangle.y * 2, mapRectangle.width * 2, mapRectangle.height * 2);
+            worldCollisionIndex.put(nextRectangle, worldCollision.size());
             worldCollision.add(nextRectangle);
+            int category = parseCategory(mapObject.getProperties().get("category"));
+            collisionCategory.put(nextRectangle, category);
+            usedCategories |= category;
+
+            String name = mapObject.getName();
+            if (name == null) {
+                staticRectangles.add(nextRectangle);
+            }
+            else {
+                List<Rectangle> named = namedCollision.get(name);
+                if (named == null) {
+                    named = new ArrayList<>();
+                    namedCollision.put(name, named);
+                }
+                named.add(nextRectangle);
+            }
+        }
+        buildIndexes(staticRectangles);
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onLoaded();
+        }
+    }
+
+    /**
+     * Turn the "category" property of a collision object into category bits.
+     * @param property - The property, either a number or a list of names seperated by commas. Null means a wall.
+     * @return The category bits.
+     */
+    static int parseCategory(Object property) {
+        if (property == null) return WALL;
+        if (property instanceof Integer) return (Integer) property;
+        int category = 0;
+        for (String name : property.toString().split(",")) {
+            switch (name.trim().toLowerCase()) {
+                case "wall":
+                    category |= WALL;
+                    break;
+                case "door":
+                    category |= DOOR;
+                    break;
+                case "hazard":
+                    category |= HAZARD;
+                    break;
+                case "player":
+                    category |= PLAYER;
+                    break;
+                case "dean":
+                    category |= DEAN;
+                    break;
+                case "entity":
+                    category |= ENTITY;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown collision category: " + name);
+            }
         }
+        return category;
+    }
+
+    /**
+     * @param rectangle - A collision rectangle from the map.
+     * @return Its category bits, or 0 if it is not collision from the map.
+     */
+    public int getCategory(Rectangle rectangle) {
+        Integer category = collisionCategory.get(rectangle);
+        return category == null ? 0 : category;
+    }
+
+    /**
+     * Build the tree of static collision, and the grid and bitmap which are both sized to fit every collision rectangle.
+     * @param staticRectangles - The rectangles without names, which can never be removed.
+     */
+    private void buildIndexes(List<Rectangle> staticRectangles) {
+        Rectangle bounds = new Rectangle();
+        boolean first = true;
+        for (Rectangle rectangle : worldCollision) {
+            if (first) bounds.set(rectangle);
+            else bounds.merge(rectangle);
+            first = false;
+        }
+        collisionGrid = new SpatialHashGrid<>(bounds.x, bounds.y, bounds.width, bounds.height, GRIDCELLSIZE);
+        collisionBitmap = new CollisionBitmap(bounds.x, bounds.y, bounds.width, bounds.height, BITMAPCELLSIZE);
+        for (Rectangle rectangle : worldCollision) {
+            collisionBitmap.rasterize(rectangle);
+        }
+        for (List<Rectangle> named : namedCollision.values()) {
+            for (Rectangle rectangle : named) {
+                collisionGrid.insert(rectangle, rectangle);
+            }
+        }
+        staticCollision = new StaticRTree(staticRectangles, this::getCategory);
     }
 
     public List<Rectangle> getWorldCollision() { return worldCollision; }
+
+    public Map<String, List<Rectangle>> getNamedCollision() { return namedCollision; }
+
+    /**
+     * @param rectangle - A collision rectangle from the map.
+     * @return True if it is currently in the world (named rectangles can be removed).
+     */
+    public boolean isInWorld(Rectangle rectangle) {
+        return worldCollisionIndex.containsKey(rectangle);
+    }
+
+    /**
+     * Start telling a listener when collision is loaded, removed or added back.
+     * @param listener - The listener to add.
+     */
+    public void addListener(CollisionListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Stop telling a listener about changes to the collision.
+     * @param listener - The listener to remove.
+     */
+    public void removeListener(CollisionListener listener) {
+        listeners.remove(listener);
+    }
+
+    public SpatialHashGrid<Rectangle> getCollisionGrid() { return collisionGrid; }
+
+    public StaticRTree getStaticCollision() { return staticCollision; }
+
+    /**
+     * Find the collision currently in the world which overlaps an area, e.g. the part of the world on screen.
+     * @param area - The area to search.
+     * @param results - The list the rectangles are added to.
+     */
+    public void getCollisionInArea(Rectangle area, List<Rectangle> results) {
+        staticCollision.query(area, results);
+        int start = results.size();
+        collisionGrid.query(area, results);
+        for (int i = results.size() - 1; i >= start; i--) { // the grid also returns rectangles which are only nearby.
+            if (!results.get(i).overlaps(area)) results.remove(i);
+        }
+    }
+
+    public CollisionBitmap getCollisionBitmap() { return collisionBitmap; }
     
     /**
-     * Serches collision Rectangle for name, then deletes from world collision by the rectangle.
+     * Remove every collision rectangle with a name from the world, e.g. when a door is opened.
+     * Does nothing to rectangles which have already been removed.
      * @param name - The name of the rectangle. 
      */
     public void removeCollisionByName(String name) {
-        MapLayer collisionLayer = map.getLayers().get("Collision");
-        MapObjects collisionObjects = collisionLayer.getObjects();
+        List<Rectangle> named = namedCollision.get(name);
+        if (named == null) return;
+        for (int i = 0; i < named.size(); i++) {
+            Rectangle r = named.get(i);
+            Integer index = worldCollisionIndex.remove(r);
+            if (index == null) continue; // already removed.
 
-        for (MapObject m : collisionObjects) {
+            // Swap the last rectangle into the gap so nothing has to be shifted along.
+            Rectangle last = worldCollision.remove(worldCollision.size() - 1);
+            if (last != r) {
+                worldCollision.set(index, last);
+                worldCollisionIndex.put(last, index);
+            }
 
-            if (m.getName() == null) {
-                continue;
+            collisionGrid.remove(r, r);
+            // Grow the area by a bitmap cell (and a little), so rectangles sharing the edge cells are found.
+            float margin = BITMAPCELLSIZE + 1;
+            changedArea.set(r.x - margin, r.y - margin, r.width + 2 * margin, r.height + 2 * margin);
+            nearbyCollision.clear();
+            staticCollision.query(changedArea, nearbyCollision);
+            collisionGrid.query(changedArea, nearbyCollision);
+            collisionBitmap.rebuild(r, nearbyCollision);
+            for (int l = 0; l < listeners.size(); l++) {
+                listeners.get(l).onRemoved(r);
             }
+        }
+    }
 
-            if (!m.getName().equals(name)) {
-                continue;
+    /**
+     * Put every collision rectangle with a name back into the world, e.g. when a door is closed again.
+     * Does nothing to rectangles which are already in the world.
+     * @param name - The name of the rectangle. 
+     */
+    public void addCollisionByName(String name) {
+        List<Rectangle> named = namedCollision.get(name);
+        if (named == null) return;
+        for (int i = 0; i < named.size(); i++) {
+            Rectangle r = named.get(i);
+            if (worldCollisionIndex.containsKey(r)) continue; // already in the world.
+            worldCollisionIndex.put(r, worldCollision.size());
+            worldCollision.add(r);
+            collisionGrid.insert(r, r);
+            collisionBitmap.rasterize(r);
+            for (int l = 0; l < listeners.size(); l++) {
+                listeners.get(l).onAdded(r);
             }
+        }
+    }
 
-            Rectangle r = ((RectangleMapObject) m).getRectangle();
-            worldCollision.remove(r);
+    /**
+     * @param name - The name of the rectangle. 
+     * @return True if any collision rectangle with this name is currently in the world.
+     */
+    public boolean hasCollisionByName(String name) {
+        List<Rectangle> named = namedCollision.get(name);
+        if (named == null) return false;
+        for (int i = 0; i < named.size(); i++) {
+            if (worldCollisionIndex.containsKey(named.get(i))) return true;
         }
+        return false;
     }
 
     /**
      * Check if it is safe for an entity to move to a given location. 
+     * The bitmap is checked first, then the static tree and the named rectangles in the grid cells around the new hitbox if needed.
      * @param x - The x co-ordinate to check.
      * @param y - The y co-ordinate to check.
      * @param currentHitbox - The hitbox of the entity you wish to check. 
      * @return True if the entity will not hit collision when it moves there. 
      */
     public boolean safeToMove(float x, float y, Rectangle currentHitbox) {
-        Rectangle testHitbox = new Rectangle();
-        testHitbox = testHitbox.set(currentHitbox);
+        return safeToMove(x, y, currentHitbox, ALL);
+    }
+
+    /**
+     * Check if it is safe for an entity to move to a given location, only counting some categories of collision.
+     * @param x - The x co-ordinate to check.
+     * @param y - The y co-ordinate to check.
+     * @param currentHitbox - The hitbox of the entity you wish to check. 
+     * @param mask - The categories the entity collides with.
+     * @return True if the entity will not hit collision when it moves there. 
+     */
+    public boolean safeToMove(float x, float y, Rectangle currentHitbox, int mask) {
+        if ((mask & usedCategories) == 0) return true;
+        testHitbox.set(currentHitbox);
         testHitbox.setPosition(x + 16, y + 16);
 
-        for (Rectangle rectangle : worldCollision) {
-            if (rectangle.overlaps(testHitbox)) {
-                return false;
+        int bitmapResult = collisionBitmap.test(testHitbox);
+        if (bitmapResult == CollisionBitmap.CLEAR) return true;
+        // The bitmap does not know which rectangle filled a cell, so it can only be trusted if every category counts.
+        if (bitmapResult == CollisionBitmap.BLOCKED && (mask & usedCategories) == usedCategories) return false;
+        return !overlapsCollision(testHitbox, mask);
+    }
+
+    /**
+     * Check if it is safe for many entities to move, in one call.
+     * Every hitbox is checked against the bitmap first, then only the ones it could not answer are checked
+     * against the rectangles, so each pass works through memory in order.
+     * @param x - The x co-ordinate each entity wants to move to.
+     * @param y - The y co-ordinate each entity wants to move to.
+     * @param width - The width of each entity's hitbox.
+     * @param height - The height of each entity's hitbox.
+     * @param mask - The categories each entity collides with, the same as its collision mask.
+     * @param count - How many entities to check.
+     * @param safe - Filled with wether each entity will not hit collision when it moves there.
+     */
+    public void safeToMove(float[] x, float[] y, float[] width, float[] height, int[] mask, int count, boolean[] safe) {
+        if (batchPending.length < count) batchPending = new int[Math.max(count, batchPending.length * 2)];
+        int pending = 0;
+        for (int i = 0; i < count; i++) {
+            int used = mask[i] & usedCategories;
+            if (used == 0) {
+                safe[i] = true;
+                continue;
+            }
+            testHitbox.set(x[i] + 16, y[i] + 16, width[i], height[i]);
+            int bitmapResult = collisionBitmap.test(testHitbox);
+            safe[i] = bitmapResult == CollisionBitmap.CLEAR;
+            // The bitmap does not know which rectangle filled a cell, so a blocked answer is only trusted if every category counts.
+            if (bitmapResult == CollisionBitmap.UNKNOWN || (bitmapResult == CollisionBitmap.BLOCKED && used != usedCategories)) {
+                batchPending[pending++] = i;
             }
         }
-        return true;
+        for (int p = 0; p < pending; p++) {
+            int i = batchPending[p];
+            testHitbox.set(x[i] + 16, y[i] + 16, width[i], height[i]);
+            safe[i] = !overlapsCollision(testHitbox, mask[i]);
+        }
+    }
+
+    /**
+     * Check a hitbox against the rectangles themselves, without using the bitmap.
+     * @param testHitbox - The hitbox, already in the position being checked.
+     * @param mask - The categories that count.
+     * @return True if it overlaps any collision in those categories.
+     */
+    private boolean overlapsCollision(Rectangle testHitbox, int mask) {
+        if (staticCollision.overlapsAny(testHitbox.x, testHitbox.y, testHitbox.width, testHitbox.height, mask)) return true;
+
+        int minColumn = collisionGrid.getColumn(testHitbox.x);
+        int maxColumn = collisionGrid.getColumn(testHitbox.x + testHitbox.width);
+        int minRow = collisionGrid.getRow(testHitbox.y);
+        int maxRow = collisionGrid.getRow(testHitbox.y + testHitbox.height);
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                List<Rectangle> cell = collisionGrid.getCell(column, row);
+                for (int i = 0; i < cell.size(); i++) {
+                    Rectangle r = cell.get(i);
+                    if ((getCategory(r) & mask) != 0 && r.overlaps(testHitbox)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sweep an entity's hitbox along a movement and find the first collision it would hit on the way.
+     * Unlike safeToMove this cannot skip over thin walls when the movement is large.
+     * Collision the hitbox is already inside at the start is ignored, so an entity can always walk out of it.
+     * @param x - The entity's current x co-ordinate.
+     * @param y - The entity's current y co-ordinate.
+     * @param currentHitbox - The hitbox of the entity you wish to move.
+     * @param dx - How far the entity wants to move in x.
+     * @param dy - How far the entity wants to move in y.
+     * @return The time of impact, the fraction (0 to 1) of the movement the entity can make before hitting something.
+     */
+    public float sweep(float x, float y, Rectangle currentHitbox, float dx, float dy) {
+        return sweep(x, y, currentHitbox, dx, dy, ALL);
+    }
+
+    /**
+     * Sweep an entity's hitbox along a movement, only counting some categories of collision.
+     * @param x - The entity's current x co-ordinate.
+     * @param y - The entity's current y co-ordinate.
+     * @param currentHitbox - The hitbox of the entity you wish to move.
+     * @param dx - How far the entity wants to move in x.
+     * @param dy - How far the entity wants to move in y.
+     * @param mask - The categories the entity collides with.
+     * @return The time of impact, the fraction (0 to 1) of the movement the entity can make before hitting something.
+     */
+    public float sweep(float x, float y, Rectangle currentHitbox, float dx, float dy, int mask) {
+        if (dx == 0 && dy == 0) return 1;
+        if ((mask & usedCategories) == 0) return 1;
+        float startX = x + 16;
+        float startY = y + 16;
+        float width = currentHitbox.width;
+        float height = currentHitbox.height;
+
+        // The area covered by the whole movement.
+        sweepArea.set(Math.min(startX, startX + dx), Math.min(startY, startY + dy), width + Math.abs(dx), height + Math.abs(dy));
+        if (collisionBitmap.test(sweepArea) == CollisionBitmap.CLEAR) return 1;
+
+        float timeOfImpact = 1;
+        sweepCollision.clear();
+        staticCollision.query(sweepArea, mask, sweepCollision);
+        for (int i = 0; i < sweepCollision.size(); i++) {
+            float time = timeOfImpact(startX, startY, width, height, dx, dy, sweepCollision.get(i));
+            if (time < timeOfImpact) timeOfImpact = time;
+        }
+        int minColumn = collisionGrid.getColumn(sweepArea.x);
+        int maxColumn = collisionGrid.getColumn(sweepArea.x + sweepArea.width);
+        int minRow = collisionGrid.getRow(sweepArea.y);
+        int maxRow = collisionGrid.getRow(sweepArea.y + sweepArea.height);
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                List<Rectangle> cell = collisionGrid.getCell(column, row);
+                for (int i = 0; i < cell.size(); i++) {
+                    Rectangle r = cell.get(i);
+                    if ((getCategory(r) & mask) == 0) continue;
+                    float time = timeOfImpact(startX, startY, width, height, dx, dy, r);
+                    if (time < timeOfImpact) timeOfImpact = time;
+                }
+            }
+        }
+        if (timeOfImpact < 1) {
+            float length = (float) Math.sqrt(dx * dx + dy * dy);
+            timeOfImpact = Math.max(0, timeOfImpact - SWEEPSKIN / length);
+        }
+        return timeOfImpact;
+    }
+
+    /**
+     * Find when a moving box first overlaps a rectangle, using the same rules as Rectangle.overlaps (touching is not overlapping).
+     * @return The time (0 to 1) the box first overlaps the rectangle, or 1 if it does not during the movement (or already overlaps it).
+     */
+    private static float timeOfImpact(float x, float y, float width, float height, float dx, float dy, Rectangle rectangle) {
+        float entryX;
+        float exitX;
+        if (dx > 0) {
+            entryX = (rectangle.x - (x + width)) / dx;
+            exitX = (rectangle.x + rectangle.width - x) / dx;
+        }
+        else if (dx < 0) {
+            entryX = (rectangle.x + rectangle.width - x) / dx;
+            exitX = (rectangle.x - (x + width)) / dx;
+        }
+        else if (x < rectangle.x + rectangle.width && x + width > rectangle.x) {
+            entryX = Float.NEGATIVE_INFINITY;
+            exitX = Float.POSITIVE_INFINITY;
+        }
+        else return 1;
+
+        float entryY;
+        float exitY;
+        if (dy > 0) {
+            entryY = (rectangle.y - (y + height)) / dy;
+            exitY = (rectangle.y + rectangle.height - y) / dy;
+        }
+        else if (dy < 0) {
+            entryY = (rectangle.y + rectangle.height - y) / dy;
+            exitY = (rectangle.y - (y + height)) / dy;
+        }
+        else if (y < rectangle.y + rectangle.height && y + height > rectangle.y) {
+            entryY = Float.NEGATIVE_INFINITY;
+            exitY = Float.POSITIVE_INFINITY;
+        }
+        else return 1;
+
+        float entry = Math.max(entryX, entryY);
+        float exit = Math.min(exitX, exitY);
+        if (entry >= exit || entry >= 1 || exit <= 0) return 1; // never overlapping during this movement.
+        if (entry < 0) return 1; // already overlapping at the start.
+        return entry;
     }
 }
@@ -0,0 +1,356 @@
+package io.github.eng1group9.systems;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.VertexAttributes.Usage;
+import com.badlogic.gdx.graphics.glutils.ImmediateModeRenderer20;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.IntIntMap;
+import io.github.eng1group9.entities.Dean;
+import io.github.eng1group9.entities.Player;
+import io.github.eng1group9.systems.TriggerSystem.Trigger;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Draws the collision, triggers, collision grid cells and entity boxes for debugging (F2).
+ * Everything from the map is written into one static mesh when it is first drawn, as a filled quad and an outline for each rectangle,
+ * so the whole overlay takes a few draw calls however many rectangles the map has.
+ * Each rectangle keeps the same place in the mesh, so when collision is removed or added back (see {@link CollisionSystem.CollisionListener})
+ * only its own vertices and those of the grid cells it is in are rewritten.
+ * Rectangles which are not in the world are squashed to a point, so they draw nothing.
+ * The player's hitbox and the dean's reach move every frame, so they are kept in a small seperate mesh.
+ */
+public class DebugRenderer implements CollisionSystem.CollisionListener {
+    private static final int FLOATSPERVERTEX = 3; // x, y and a packed colour.
+    private static final int FILLVERTICES = 6; // Two triangles.
+    private static final int OUTLINEVERTICES = 8; // Four lines.
+    private static final int ENTITYBOXES = 2; // The player's hitbox and the dean's reach.
+    private static final float FILLALPHA = 0.4f;
+    private static final float HIDDEN = Color.toFloatBits(0, 0, 0, 0);
+
+    private final CollisionSystem collisionSystem;
+    private ShaderProgram shader; // Made the first time the overlay is drawn.
+    private Mesh mapMesh; // The fills of the collision and triggers, then the outlines of the collision, triggers and grid cells.
+    private final Mesh entityMesh;
+    private int filledCount; // How many rectangles in the map mesh have a fill, the outlines come after them.
+    private int outlineCount; // How many rectangles in the map mesh have an outline.
+    private final Map<Rectangle, Integer> collisionSlots = new IdentityHashMap<>(); // Where each collision rectangle is in the map mesh.
+    private final List<Trigger> triggers = new ArrayList<>(); // The triggers in the map mesh, in order after the collision.
+    private boolean[] triggerShown = new boolean[0]; // Wether each trigger is drawn, so only ones which were removed are rewritten.
+    private final IntIntMap gridCellSlots = new IntIntMap(); // Where each grid cell is in the map mesh, by row * columns + column.
+    private int triggerVersion; // The trigger version the map mesh was last checked against.
+    private boolean stale = true; // Wether the map mesh needs building again, e.g. a new map has been loaded.
+    private final float[] rectangleVertices = new float[OUTLINEVERTICES * FLOATSPERVERTEX]; // Reused when rewriting a rectangle.
+    private final float[] entityVertices = new float[ENTITYBOXES * (FILLVERTICES + OUTLINEVERTICES) * FLOATSPERVERTEX];
+    private final Rectangle cell = new Rectangle(); // Reused when rewriting a grid cell.
+
+    /**
+     * Set up the overlay for a collision system, which it listens to for changes.
+     * @param collisionSystem - The system holding the games collison.
+     */
+    public DebugRenderer(CollisionSystem collisionSystem) {
+        this.collisionSystem = collisionSystem;
+        this.entityMesh = new Mesh(false, entityVertices.length / FLOATSPERVERTEX, 0, createAttributes());
+        collisionSystem.addListener(this);
+    }
+
+    /**
+     * @return The layout of each vertex, a position and a packed colour.
+     */
+    private static VertexAttribute[] createAttributes() {
+        return new VertexAttribute[] {new VertexAttribute(Usage.Position, 2, ShaderProgram.POSITION_ATTRIBUTE), VertexAttribute.ColorPacked()};
+    }
+
+    /**
+     * Write every collision rectangle, trigger and collision grid cell into a new map mesh.
+     */
+    private void build() {
+        if (mapMesh != null) mapMesh.dispose();
+        collisionSlots.clear();
+        triggers.clear();
+        gridCellSlots.clear();
+
+        // Named collision may already have been removed, so it is taken from the names as well as the world.
+        List<Rectangle> collision = new ArrayList<>(collisionSystem.getWorldCollision());
+        for (Rectangle r : collision) {
+            collisionSlots.put(r, collisionSlots.size());
+        }
+        for (List<Rectangle> named : collisionSystem.getNamedCollision().values()) {
+            for (Rectangle r : named) {
+                if (collisionSlots.containsKey(r)) continue;
+                collisionSlots.put(r, collisionSlots.size());
+                collision.add(r);
+            }
+        }
+        triggers.addAll(TriggerSystem.getTouchTriggers());
+        triggers.addAll(TriggerSystem.getInteractTriggers());
+        triggerShown = new boolean[triggers.size()];
+        triggerVersion = TriggerSystem.getVersion();
+        filledCount = collision.size() + triggers.size();
+        // Only the cells that named collision can be in are drawn, as the cells of static collision never change.
+        SpatialHashGrid<Rectangle> grid = collisionSystem.getCollisionGrid();
+        for (List<Rectangle> named : collisionSystem.getNamedCollision().values()) {
+            for (Rectangle r : named) {
+                for (int row = grid.getRow(r.y); row <= grid.getRow(r.y + r.height); row++) {
+                    for (int column = grid.getColumn(r.x); column <= grid.getColumn(r.x + r.width); column++) {
+                        int key = row * grid.getColumns() + column;
+                        if (!gridCellSlots.containsKey(key)) gridCellSlots.put(key, filledCount + gridCellSlots.size);
+                    }
+                }
+            }
+        }
+        outlineCount = filledCount + gridCellSlots.size;
+
+        float[] vertices = new float[(filledCount * FILLVERTICES + outlineCount * OUTLINEVERTICES) * FLOATSPERVERTEX];
+        for (int slot = 0; slot < collision.size(); slot++) {
+            Rectangle r = collision.get(slot);
+            boolean inWorld = collisionSystem.isInWorld(r);
+            putFill(vertices, getFillOffset(slot), r, inWorld, getColour(collisionSystem.getCategory(r), FILLALPHA));
+            putOutline(vertices, getOutlineOffset(slot), r, inWorld, getColour(collisionSystem.getCategory(r), 1));
+        }
+        for (int i = 0; i < triggers.size(); i++) {
+            triggerShown[i] = true;
+            putTrigger(vertices, triggers.get(i), collision.size() + i, true);
+        }
+        for (IntIntMap.Entry entry : gridCellSlots) {
+            putGridCell(vertices, getOutlineOffset(entry.value), entry.key);
+        }
+        mapMesh = new Mesh(true, Math.max(1, vertices.length / FLOATSPERVERTEX), 0, createAttributes());
+        mapMesh.setVertices(vertices);
+        stale = false;
+    }
+
+    /**
+     * @return Where a rectangle's fill starts in the map mesh, in floats.
+     */
+    private int getFillOffset(int slot) {
+        return slot * FILLVERTICES * FLOATSPERVERTEX;
+    }
+
+    /**
+     * @return Where a rectangle's outline starts in the map mesh, in floats.
+     */
+    private int getOutlineOffset(int slot) {
+        return (filledCount * FILLVERTICES + slot * OUTLINEVERTICES) * FLOATSPERVERTEX;
+    }
+
+    /**
+     * @param category - The category bits of a collision rectangle.
+     * @param alpha - How solid the colour is.
+     * @return The colour collision of that category is drawn in, packed into a float.
+     */
+    private static float getColour(int category, float alpha) {
+        if ((category & CollisionSystem.HAZARD) != 0) return Color.toFloatBits(1, 0, 1, alpha);
+        if ((category & CollisionSystem.DOOR) != 0) return Color.toFloatBits(1, 1, 0, alpha);
+        return Color.toFloatBits(1, 0, 0, alpha);
+    }
+
+    /**
+     * Write two triangles covering a rectangle.
+     * @param vertices - The vertices to write into.
+     * @param offset - Where to start writing, in floats.
+     * @param r - The rectangle.
+     * @param shown - Wether it should be drawn, if not it is squashed to a point.
+     * @param colour - The packed colour.
+     */
+    private static void putFill(float[] vertices, int offset, Rectangle r, boolean shown, float colour) {
+        float right = shown ? r.x + r.width : r.x;
+        float top = shown ? r.y + r.height : r.y;
+        if (!shown) colour = HIDDEN;
+        offset = putVertex(vertices, offset, r.x, r.y, colour);
+        offset = putVertex(vertices, offset, right, r.y, colour);
+        offset = putVertex(vertices, offset, right, top, colour);
+        offset = putVertex(vertices, offset, r.x, r.y, colour);
+        offset = putVertex(vertices, offset, right, top, colour);
+        putVertex(vertices, offset, r.x, top, colour);
+    }
+
+    /**
+     * Write four lines around a rectangle.
+     * @param vertices - The vertices to write into.
+     * @param offset - Where to start writing, in floats.
+     * @param r - The rectangle.
+     * @param shown - Wether it should be drawn, if not it is squashed to a point.
+     * @param colour - The packed colour.
+     */
+    private static void putOutline(float[] vertices, int offset, Rectangle r, boolean shown, float colour) {
+        float right = shown ? r.x + r.width : r.x;
+        float top = shown ? r.y + r.height : r.y;
+        if (!shown) colour = HIDDEN;
+        offset = putVertex(vertices, offset, r.x, r.y, colour);
+        offset = putVertex(vertices, offset, right, r.y, colour);
+        offset = putVertex(vertices, offset, right, r.y, colour);
+        offset = putVertex(vertices, offset, right, top, colour);
+        offset = putVertex(vertices, offset, right, top, colour);
+        offset = putVertex(vertices, offset, r.x, top, colour);
+        offset = putVertex(vertices, offset, r.x, top, colour);
+        putVertex(vertices, offset, r.x, r.y, colour);
+    }
+
+    /**
+     * @return The offset after the vertex.
+     */
+    private static int putVertex(float[] vertices, int offset, float x, float y, float colour) {
+        vertices[offset] = x;
+        vertices[offset + 1] = y;
+        vertices[offset + 2] = colour;
+        return offset + FLOATSPERVERTEX;
+    }
+
+    /**
+     * Write a trigger's zone, cyan for touch triggers and blue for interact triggers.
+     */
+    private void putTrigger(float[] vertices, Trigger t, int slot, boolean shown) {
+        float blue = t.isActivateOnTouch() ? 1 : 0.5f;
+        putFill(vertices, getFillOffset(slot), t.getZone(), shown, Color.toFloatBits(0, blue, 1, FILLALPHA));
+        putOutline(vertices, getOutlineOffset(slot), t.getZone(), shown, Color.toFloatBits(0, blue, 1, 1));
+    }
+
+    /**
+     * Write the outline of a collision grid cell, which is only shown while there is collision in it.
+     * @param vertices - The vertices to write into.
+     * @param offset - Where to start writing, in floats.
+     * @param key - The cell, row * columns + column.
+     */
+    private void putGridCell(float[] vertices, int offset, int key) {
+        SpatialHashGrid<Rectangle> grid = collisionSystem.getCollisionGrid();
+        int column = key % grid.getColumns();
+        int row = key / grid.getColumns();
+        cell.set(grid.getOriginX() + column * grid.getCellSize(), grid.getOriginY() + row * grid.getCellSize(), grid.getCellSize(), grid.getCellSize());
+        putOutline(vertices, offset, cell, !grid.getCell(column, row).isEmpty(), Color.toFloatBits(1, 1, 1, 0.3f));
+    }
+
+    /**
+     * Rewrite a collision rectangle, and the grid cells it is in, after it is removed or added back.
+     * @param r - The rectangle which changed.
+     */
+    private void updateCollision(Rectangle r) {
+        Integer slot = collisionSlots.get(r);
+        if (stale || slot == null) return; // the whole mesh will be built again anyway.
+        boolean inWorld = collisionSystem.isInWorld(r);
+        int category = collisionSystem.getCategory(r);
+        putFill(rectangleVertices, 0, r, inWorld, getColour(category, FILLALPHA));
+        mapMesh.updateVertices(getFillOffset(slot), rectangleVertices, 0, FILLVERTICES * FLOATSPERVERTEX);
+        putOutline(rectangleVertices, 0, r, inWorld, getColour(category, 1));
+        mapMesh.updateVertices(getOutlineOffset(slot), rectangleVertices, 0, OUTLINEVERTICES * FLOATSPERVERTEX);
+
+        SpatialHashGrid<Rectangle> grid = collisionSystem.getCollisionGrid();
+        for (int row = grid.getRow(r.y); row <= grid.getRow(r.y + r.height); row++) {
+            for (int column = grid.getColumn(r.x); column <= grid.getColumn(r.x + r.width); column++) {
+                int key = row * grid.getColumns() + column;
+                if (!gridCellSlots.containsKey(key)) continue;
+                putGridCell(rectangleVertices, 0, key);
+                mapMesh.updateVertices(getOutlineOffset(gridCellSlots.get(key, 0)), rectangleVertices, 0, OUTLINEVERTICES * FLOATSPERVERTEX);
+            }
+        }
+    }
+
+    /**
+     * Hide any triggers which have been removed since the map mesh was last checked.
+     * If the triggers were loaded again the whole mesh is built again instead.
+     */
+    private void updateTriggers() {
+        triggerVersion = TriggerSystem.getVersion();
+        int active = 0;
+        for (int i = 0; i < triggers.size(); i++) {
+            if (TriggerSystem.isActive(triggers.get(i))) active++;
+        }
+        if (active != TriggerSystem.getTouchTriggers().size() + TriggerSystem.getInteractTriggers().size()) {
+            build(); // there are triggers the mesh does not have.
+            return;
+        }
+        int firstTriggerSlot = filledCount - triggers.size();
+        for (int i = 0; i < triggers.size(); i++) {
+            Trigger t = triggers.get(i);
+            if (!triggerShown[i] || TriggerSystem.isActive(t)) continue;
+            triggerShown[i] = false;
+            putFill(rectangleVertices, 0, t.getZone(), false, HIDDEN);
+            mapMesh.updateVertices(getFillOffset(firstTriggerSlot + i), rectangleVertices, 0, FILLVERTICES * FLOATSPERVERTEX);
+            putOutline(rectangleVertices, 0, t.getZone(), false, HIDDEN);
+            mapMesh.updateVertices(getOutlineOffset(firstTriggerSlot + i), rectangleVertices, 0, OUTLINEVERTICES * FLOATSPERVERTEX);
+        }
+    }
+
+    @Override
+    public void onLoaded() {
+        stale = true;
+    }
+
+    @Override
+    public void onRemoved(Rectangle rectangle) {
+        updateCollision(rectangle);
+    }
+
+    @Override
+    public void onAdded(Rectangle rectangle) {
+        updateCollision(rectangle);
+    }
+
+    /**
+     * Bring the map mesh up to date with the collision and triggers, without drawing anything.
+     * This is done at the start of draw.
+     */
+    void update() {
+        if (stale) build();
+        else if (triggerVersion != TriggerSystem.getVersion()) updateTriggers();
+    }
+
+    /**
+     * Draw the overlay over the world.
+     * @param projection - The projection for entity co-ordinates.
+     * @param player - The current player object.
+     * @param dean - The dean object.
+     */
+    public void draw(Matrix4 projection, Player player, Dean dean) {
+        update();
+        // Drawn 16 units up and right, where the collision overlay has always drawn them.
+        Rectangle hitbox = player.getHitbox();
+        cell.set(hitbox.x + 16, hitbox.y + 16, hitbox.width, hitbox.height);
+        putFill(entityVertices, 0, cell, true, Color.toFloatBits(0, 1, 0, FILLALPHA));
+        putOutline(entityVertices, ENTITYBOXES * FILLVERTICES * FLOATSPERVERTEX, cell, true, Color.toFloatBits(0, 1, 0, 1));
+        Rectangle reach = dean.getReachRectangle();
+        cell.set(reach.x + 16, reach.y + 16, reach.width, reach.height);
+        putFill(entityVertices, FILLVERTICES * FLOATSPERVERTEX, cell, true, Color.toFloatBits(1, 0.5f, 0, FILLALPHA));
+        putOutline(entityVertices, (ENTITYBOXES * FILLVERTICES + OUTLINEVERTICES) * FLOATSPERVERTEX, cell, true, Color.toFloatBits(1, 0.5f, 0, 1));
+        entityMesh.setVertices(entityVertices);
+
+        if (shader == null) shader = ImmediateModeRenderer20.createDefaultShader(false, true, 0);
+        Gdx.gl.glEnable(GL20.GL_BLEND);
+        Gdx.gl.glBlendFunc(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+        shader.bind();
+        shader.setUniformMatrix("u_projModelView", projection);
+        mapMesh.render(shader, GL20.GL_TRIANGLES, 0, filledCount * FILLVERTICES);
+        mapMesh.render(shader, GL20.GL_LINES, filledCount * FILLVERTICES, outlineCount * OUTLINEVERTICES);
+        entityMesh.render(shader, GL20.GL_TRIANGLES, 0, ENTITYBOXES * FILLVERTICES);
+        entityMesh.render(shader, GL20.GL_LINES, ENTITYBOXES * FILLVERTICES, ENTITYBOXES * OUTLINEVERTICES);
+        Gdx.gl.glDisable(GL20.GL_BLEND);
+    }
+
+    /**
+     * @param rectangle - A collision rectangle.
+     * @return Wether the rectangle is drawn (its fill is not see through), for testing.
+     */
+    boolean isShown(Rectangle rectangle) {
+        float[] fill = mapMesh.getVertices(getFillOffset(collisionSlots.get(rectangle)), FLOATSPERVERTEX, new float[FLOATSPERVERTEX]);
+        return fill[2] != HIDDEN;
+    }
+
+    /**
+     * Stop listening to the collision system, and free the meshes and shader.
+     */
+    public void dispose() {
+        collisionSystem.removeListener(this);
+        if (mapMesh != null) mapMesh.dispose();
+        entityMesh.dispose();
+        if (shader != null) shader.dispose();
+    }
+}
@@ -0,0 +1,185 @@
+package io.github.eng1group9.systems;
+
+import java.util.Arrays;
+
+import com.badlogic.gdx.math.Rectangle;
+
+import io.github.eng1group9.entities.Entity;
+
+/**
+ * Finds which entity rectangles (hitboxes, reach zones) overlap each other, using sort and sweep.
+ * Rectangles are kept sorted by their left edge, and each one is only compared with the rectangles that start
+ * before its right edge. The order is kept between ticks, and as entities only move a little each frame
+ * re-sorting it is almost free, so a tick costs about the number of rectangles plus the number of overlaps.
+ * Nothing is created during a tick, so it is safe to run every frame.
+ */
+public class EntityBroadphase {
+    public static final int HITBOX = 0; // The rectangle is an entity's hitbox.
+    public static final int REACH = 1; // The rectangle is an area an entity can reach, e.g. the Dean's reach.
+
+    private Rectangle[] bounds = new Rectangle[16];
+    private Object[] owners = new Object[16];
+    private int[] kinds = new int[16];
+    private float[] left = new float[16]; // The left edge of each rectangle, updated each tick.
+    private int proxyCount = 0;
+
+    private int[] order = new int[16]; // Proxies sorted by left edge.
+    private int[] pairA = new int[16];
+    private int[] pairB = new int[16];
+    private int pairCount = 0;
+
+    /**
+     * Add an entity's hitbox to the broadphase.
+     * @param entity - The entity, its hitbox is read each tick so it can keep moving.
+     * @return The id of the new proxy.
+     */
+    public int addEntity(Entity entity) {
+        return add(entity.getHitbox(), entity, HITBOX);
+    }
+
+    /**
+     * Add a rectangle to the broadphase.
+     * @param rectangle - The rectangle, read each tick so it can keep moving (but should not be swapped for another).
+     * @param owner - Who the rectangle belongs to. Rectangles with the same owner are never reported as a pair.
+     * @param kind - What the rectangle is used for (HITBOX or REACH).
+     * @return The id of the new proxy.
+     */
+    public int add(Rectangle rectangle, Object owner, int kind) {
+        if (proxyCount == bounds.length) {
+            int size = bounds.length * 2;
+            bounds = Arrays.copyOf(bounds, size);
+            owners = Arrays.copyOf(owners, size);
+            kinds = Arrays.copyOf(kinds, size);
+            left = Arrays.copyOf(left, size);
+            order = Arrays.copyOf(order, size);
+        }
+        int id = proxyCount++;
+        bounds[id] = rectangle;
+        owners[id] = owner;
+        kinds[id] = kind;
+        left[id] = rectangle.x;
+        order[id] = id;
+        return id;
+    }
+
+    /**
+     * Remove every proxy, e.g. when the level is reset.
+     */
+    public void clear() {
+        for (int i = 0; i < proxyCount; i++) {
+            bounds[i] = null;
+            owners[i] = null;
+        }
+        proxyCount = 0;
+        pairCount = 0;
+    }
+
+    /**
+     * Re-sort the rectangles and find every overlapping pair. Should be run once per tick, after entities have moved.
+     */
+    public void update() {
+        for (int i = 0; i < proxyCount; i++) {
+            left[i] = bounds[i].x;
+        }
+
+        // Insertion sort, which is close to linear as the order barely changes between ticks.
+        for (int i = 1; i < proxyCount; i++) {
+            int proxy = order[i];
+            float key = left[proxy];
+            int j = i - 1;
+            while (j >= 0 && left[order[j]] > key) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = proxy;
+        }
+
+        pairCount = 0;
+        for (int i = 0; i < proxyCount; i++) {
+            int a = order[i];
+            Rectangle boundsA = bounds[a];
+            float right = boundsA.x + boundsA.width;
+            for (int j = i + 1; j < proxyCount; j++) {
+                int b = order[j];
+                if (left[b] >= right) break; // everything after this starts even further right.
+                if (owners[a] == owners[b]) continue;
+                if (boundsA.overlaps(bounds[b])) addPair(a, b);
+            }
+        }
+    }
+
+    private void addPair(int a, int b) {
+        if (pairCount == pairA.length) {
+            pairA = Arrays.copyOf(pairA, pairA.length * 2);
+            pairB = Arrays.copyOf(pairB, pairB.length * 2);
+        }
+        pairA[pairCount] = a;
+        pairB[pairCount] = b;
+        pairCount++;
+    }
+
+    /**
+     * Check if two owners had overlapping rectangles of the given kinds at the last update.
+     * @param ownerA - The first owner, e.g. a Dean.
+     * @param kindA - The kind of rectangle the first owner must use, e.g. REACH.
+     * @param ownerB - The second owner, e.g. the Player.
+     * @param kindB - The kind of rectangle the second owner must use, e.g. HITBOX.
+     * @return True if they were overlapping.
+     */
+    public boolean isOverlapping(Object ownerA, int kindA, Object ownerB, int kindB) {
+        for (int i = 0; i < pairCount; i++) {
+            int a = pairA[i];
+            int b = pairB[i];
+            if (owners[a] == ownerA && kinds[a] == kindA && owners[b] == ownerB && kinds[b] == kindB) return true;
+            if (owners[b] == ownerA && kinds[b] == kindA && owners[a] == ownerB && kinds[a] == kindB) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return How many overlapping pairs were found at the last update.
+     */
+    public int getPairCount() {
+        return pairCount;
+    }
+
+    /**
+     * @param pair - The index of the pair (0 to getPairCount() - 1).
+     * @return The proxy id of the first rectangle in the pair.
+     */
+    public int getPairA(int pair) {
+        return pairA[pair];
+    }
+
+    /**
+     * @param pair - The index of the pair (0 to getPairCount() - 1).
+     * @return The proxy id of the second rectangle in the pair.
+     */
+    public int getPairB(int pair) {
+        return pairB[pair];
+    }
+
+    /**
+     * @param proxy - The proxy id.
+     * @return Who the rectangle belongs to.
+     */
+    public Object getOwner(int proxy) {
+        return owners[proxy];
+    }
+
+    /**
+     * @param proxy - The proxy id.
+     * @return What the rectangle is used for (HITBOX or REACH).
+     */
+    public int getKind(int proxy) {
+        return kinds[proxy];
+    }
+
+    /**
+     * @param proxy - The proxy id.
+     * @return The rectangle.
+     */
+    public Rectangle getBounds(int proxy) {
+        return bounds[proxy];
+    }
+}
@@ -26,6 +26,9 @@ public class InputSystem {
         if (Gdx.input.isKeyJustPressed(Input.Keys.F2)) {
             Main.instance.showCollision = !Main.instance.showCollision;
         }
+        if (Gdx.input.isKeyJustPressed(Input.Keys.F3)) {
+            Main.renderingSystem.toggleTileShader();
+        }
         if (Gdx.input.isKeyJustPressed(Input.Keys.E)) {
             TriggerSystem.checkInteractTriggers(player);
         }
@@ -0,0 +1,133 @@
+package io.github.eng1group9.systems;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.maps.tiled.AtlasTmxMapLoader;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.utils.Array;
+
+import io.github.eng1group9.entities.AnimationSet;
+
+/**
+ * Owns the AssetManager which loads every map, atlas and texture in the game.
+ * At start up the assets are queued with preload and loaded a little each frame (decoding happens on a background thread),
+ * so a loading screen can be drawn instead of the window freezing.
+ * The MapCache and TextureCache get their assets from here, and the AssetManager keeps count of how many users each has.
+ */
+public class LoadingSystem {
+    private static final int FRAMEBUDGET = 12; // How many milliseconds of each frame can be spent loading, so the loading screen stays responsive.
+
+    private static AssetManager assets;
+    private static final List<String> preloaded = new ArrayList<>(); // Assets queued by preload, which this system holds until releasePreloaded.
+    private static final Array<Texture> loadedTextures = new Array<>(); // Reused by unload.
+
+    /**
+     * @return The AssetManager shared by the whole game, created the first time it is needed.
+     */
+    public static AssetManager getAssets() {
+        if (assets == null) {
+            assets = new AssetManager();
+            assets.setLoader(TiledMap.class, new AtlasTmxMapLoader()); // maps take their tiles from the atlas named in the map's properties.
+        }
+        return assets;
+    }
+
+    /**
+     * Queue an asset to be loaded in the background.
+     * It is kept loaded until releasePreloaded is called, so acquire it from the MapCache or TextureCache before then.
+     * @param path - The path to the asset.
+     * @param type - The type of the asset, e.g. TiledMap.class.
+     */
+    public static void preload(String path, Class<?> type) {
+        getAssets().load(path, type);
+        preloaded.add(path);
+    }
+
+    /**
+     * Carry on loading the queued assets, for at most FRAMEBUDGET milliseconds.
+     * @return Wether everything queued has finished loading.
+     */
+    public static boolean update() {
+        return getAssets().update(FRAMEBUDGET);
+    }
+
+    /**
+     * @return How much of the queued loading is done, from 0 to 1.
+     */
+    public static float getProgress() {
+        return getAssets().getProgress();
+    }
+
+    /**
+     * Stop holding the preloaded assets, so they are disposed once nothing else is using them.
+     */
+    public static void releasePreloaded() {
+        for (String path : preloaded) {
+            unload(path);
+        }
+        preloaded.clear();
+    }
+
+    /**
+     * Get an asset and count a new user of it, for the MapCache and TextureCache.
+     * An asset which is already loaded is returned straight away, without finishing anything else queued (e.g. by preload).
+     * Otherwise this waits for just this asset (and what it depends on) to load.
+     * @param path - The path to the asset.
+     * @param type - The type of the asset, e.g. TiledMap.class.
+     * @return The asset.
+     */
+    static <T> T acquire(String path, Class<T> type) {
+        getAssets();
+        if (assets.isLoaded(path, type)) {
+            addReference(path);
+            return assets.get(path, type);
+        }
+        assets.load(path, type);
+        return assets.finishLoadingAsset(path);
+    }
+
+    /**
+     * Count a new user of a loaded asset and everything it depends on,
+     * which is what the AssetManager does when an asset which is already loaded is queued again.
+     * @param path - The path to the asset.
+     */
+    private static void addReference(String path) {
+        assets.setReferenceCount(path, assets.getReferenceCount(path) + 1);
+        Array<String> dependencies = assets.getDependencies(path);
+        if (dependencies == null) return;
+        for (int i = 0; i < dependencies.size; i++) {
+            addReference(dependencies.get(i));
+        }
+    }
+
+    /**
+     * Take away one user of an asset, disposing it (and anything it depends on) if it was the last.
+     * Animations cut from a texture which is disposed are forgotten, so they do not keep it in memory or get reused after it is loaded again.
+     * @param path - The path to the asset, which does nothing if it is not loaded.
+     */
+    static void unload(String path) {
+        if (assets == null || !assets.isLoaded(path)) return;
+        loadedTextures.clear();
+        assets.getAll(Texture.class, loadedTextures);
+        assets.unload(path);
+        for (int i = 0; i < loadedTextures.size; i++) {
+            Texture texture = loadedTextures.get(i);
+            if (assets.getAssetFileName(texture) == null) AnimationSet.forget(texture);
+        }
+        loadedTextures.clear();
+    }
+
+    /**
+     * Dispose of the AssetManager and anything still loaded. Used when the game closes.
+     */
+    public static void dispose() {
+        if (assets == null) return;
+        preloaded.clear();
+        assets.dispose();
+        assets = null;
+        AnimationSet.forgetAll();
+    }
+}
@@ -0,0 +1,45 @@
+package io.github.eng1group9.systems;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+
+/**
+ * Loads each tilemap once and shares it between every system that needs it (rendering, collision, triggers).
+ * Each user acquires the map and releases it when done, and the map (and its tileset textures)
+ * is disposed when the last user releases it.
+ * The shared map should be treated as read only (apart from layer visibility),
+ * so systems copy anything they want to change, e.g. collision rectangles.
+ * Maps must have an "atlas" property pointing to the texture atlas holding their tiles (made by the packTextures task).
+ * Maps are loaded by the {@link LoadingSystem}'s AssetManager, which also loads the atlas,
+ * so the map and the entities draw from the same texture.
+ */
+public class MapCache {
+
+    /**
+     * Get a map, loading it now if it was not already loaded (or preloaded by the LoadingSystem).
+     * A map which is not loaded yet is waited for, but nothing else queued is.
+     * Every call must be matched by a call to release.
+     * @param tmxPath - The path to the tilemap (.tmx file).
+     * @return The shared map.
+     */
+    public static TiledMap acquire(String tmxPath) {
+        return LoadingSystem.acquire(tmxPath, TiledMap.class);
+    }
+
+    /**
+     * Stop using a map, disposing it if nothing else is using it.
+     * @param tmxPath - The path to the tilemap (.tmx file).
+     */
+    public static void release(String tmxPath) {
+        LoadingSystem.unload(tmxPath);
+    }
+
+    /**
+     * @param tmxPath - The path to the tilemap (.tmx file).
+     * @return How many users the map has, 0 if it is not loaded.
+     */
+    public static int getReferenceCount(String tmxPath) {
+        AssetManager assets = LoadingSystem.getAssets();
+        return assets.isLoaded(tmxPath) ? assets.getReferenceCount(tmxPath) : 0;
+    }
+}
@@ -1,38 +1,161 @@
 package io.github.eng1group9.systems;
 
+import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.BitmapFontCache;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
 import com.badlogic.gdx.maps.tiled.TiledMap;
-import com.badlogic.gdx.maps.tiled.TmxMapLoader;
 import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Matrix4;
 import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.IntMap;
 import com.badlogic.gdx.utils.ScreenUtils;
-import com.badlogic.gdx.utils.viewport.FitViewport;
+import io.github.eng1group9.entities.AnimatedEntity;
 import io.github.eng1group9.entities.Dean;
 import io.github.eng1group9.entities.Player;
 import io.github.eng1group9.systems.ToastSystem.Toast;
-import io.github.eng1group9.systems.TriggerSystem.Trigger;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Handles drawing and displaying frames. 
+ * The camera follows the player, and the map is split into square chunks of CHUNKSIZE tiles.
+ * The tile layers below and above the player in each chunk on screen are baked into framebuffers, so each frame only draws a few quads for the map.
+ * Chunks are baked when they come into view, or when one of their layers is shown or hidden,
+ * and there is a fixed number of chunk framebuffers which are reused, so big maps cost no more to draw than small ones.
+ * The layers can instead be drawn by a {@link ShaderTileMapRenderer}, one quad per layer (toggled with F3), which suits very zoomed out views.
+ * The world is drawn into a framebuffer at a fixed size (the entities' co-ordinates, 960x640), which is then scaled up to the window in one draw,
+ * so drawing costs the same in a small window and fullscreen on a 4K screen.
+ * It is scaled by a whole number whenever the window is at least its size, so every pixel is the same size.
  */
 public class RenderingSystem {
-    private Texture missingTexture;
+    private static final int[] BELOWPLAYER = {0, 1, 2, 3, 4, 5, 6}; // the layers which should appear below the player
+    private static final int[] ABOVEPLAYER = {7, 8, 9, 10, 11, 12, 13, 14, 15}; // the layers which should appear above the player
+    private static final int CHUNKSIZE = 16; // How many tiles wide and high each chunk of the map is.
+    private static final float WORLDSCALE = 2; // Entities and collision use co-ordinates twice the size of the map's pixels.
+    private static final float MININTEGERSCALE = 1; // Below this the world frame is shrunk to fit the window, as it does not fit at any whole number scale.
+    private static final int LOADINGSCREEN = 0; // Which overlay the overlay text was laid out for.
+    private static final int STARTOVERLAY = 1;
+    private static final int PAUSEOVERLAY = 2;
+    private static final int WINOVERLAY = 3;
+    private static final int LOSEOVERLAY = 4;
+
+    /**
+     * A square of the map, with its layer stacks baked into framebuffers.
+     * Chunks which have gone off screen are reused for chunks coming into view.
+     */
+    private static class Chunk {
+        private final FrameBuffer belowPlayerFrame;
+        private final FrameBuffer abovePlayerFrame;
+        private final TextureRegion belowPlayerRegion;
+        private final TextureRegion abovePlayerRegion;
+        private int key = -1; // Which chunk of the map this holds (see getChunkKey), -1 if none yet.
+        private int x; // The bottom left of the chunk in map pixels.
+        private int y;
+        private int belowPlayerVersion = -1; // The version of the stack that was baked, so the chunk knows when to bake again.
+        private int abovePlayerVersion = -1;
+        private long lastDrawn; // The frame this chunk was last on screen, so the least recently used chunk can be reused.
+
+        Chunk(int size) {
+            belowPlayerFrame = new FrameBuffer(Pixmap.Format.RGBA8888, size, size, false);
+            abovePlayerFrame = new FrameBuffer(Pixmap.Format.RGBA8888, size, size, false);
+            belowPlayerRegion = createFrameRegion(belowPlayerFrame);
+            abovePlayerRegion = createFrameRegion(abovePlayerFrame);
+        }
+
+        void dispose() {
+            belowPlayerFrame.dispose();
+            abovePlayerFrame.dispose();
+        }
+    }
+
+    private TextureRegion missingTexture;
     private SpriteBatch worldBatch;
     private SpriteBatch uiBatch;
     private BitmapFont font;
     private OrthographicCamera camera;
-    private FitViewport viewport;
     private OrthogonalTiledMapRenderer mapRenderer;
     private static TiledMap map;
+    private String tmxPath; // The path the map was acquired with, so it can be released.
+    private int mapWidth; // The size of the map in pixels (before scaling).
+    private int mapHeight;
+    private OrthographicCamera bakeCamera; // Looks at one chunk, used when baking the layers.
+    private int chunkPixels; // How many pixels wide and high each chunk is.
+    private int chunksAcross; // How many chunks fit across the map.
+    private int chunksDown;
+    private int maxChunks; // How many chunk framebuffers can be made before old ones are reused.
+    private final IntMap<Chunk> chunks = new IntMap<>(); // The chunks which have been baked, by their key.
+    private final List<Chunk> chunkPool = new ArrayList<>(); // Every chunk made so far.
+    private final List<Chunk> visibleChunks = new ArrayList<>(); // The chunks on screen this frame.
+    private long frameNumber = 0;
+    private static int belowPlayerVersion = 0; // Increased when a layer below the player is shown or hidden, so chunks bake again.
+    private static int abovePlayerVersion = 0; // Increased when a layer above the player is shown or hidden, so chunks bake again.
+    private final Matrix4 worldProjection = new Matrix4(); // The camera's projection for things using entity co-ordinates.
+    private final Rectangle worldViewArea = new Rectangle(); // The part of the world shown on screen, in entity co-ordinates.
+    private FrameBuffer worldFrame; // The world is drawn into this, then scaled up to the window. Also reused while the game is not being played (see drawIdle).
+    private TextureRegion worldFrameRegion;
+    private boolean worldFrameStale = true; // Wether something has changed since worldFrame was drawn, so drawIdle can't reuse it.
+    private boolean worldFrameShowsCollision = false; // Wether worldFrame was drawn with the collision shown.
+    private int worldFrameBelowPlayerVersion; // The layer versions worldFrame was drawn with, as layers can be shown or hidden while idle (e.g. a door opened).
+    private int worldFrameAbovePlayerVersion;
+    private int worldFrameTriggerVersion; // The trigger version worldFrame was drawn with, as the collision overlay shows the triggers.
+    private CollisionSystem listenedCollision; // The collision system collisionChanged is listening to.
+    private final CollisionSystem.CollisionListener collisionChanged = new CollisionSystem.CollisionListener() {
+        @Override
+        public void onLoaded() { worldFrameStale = true; }
+
+        @Override
+        public void onRemoved(Rectangle rectangle) { worldFrameStale = true; }
+
+        @Override
+        public void onAdded(Rectangle rectangle) { worldFrameStale = true; }
+    };
+    private int frameX; // Where worldFrame is drawn on the window, in back buffer pixels (see placeWorldFrame).
+    private int frameY;
+    private int frameWidth;
+    private int frameHeight;
+    private ShaderTileMapRenderer shaderRenderer; // Made the first time the shader renderer is used.
+    private boolean useTileShader = false; // Wether the layers are drawn by shaderRenderer instead of the baked chunks.
+    private final Matrix4 windowProjection = new Matrix4(); // Used to draw worldFrame, in back buffer pixels.
+    private DebugRenderer debugRenderer; // Made the first time the collision is shown.
+
+    // Text is laid out into caches, and only laid out again when what it says changes, so drawing text makes no garbage.
+    private BitmapFontCache clockText;
+    private String clockTextShown; // The clock display the clock text was laid out for.
+    private final List<BitmapFontCache> toastText = new ArrayList<>(); // One for each toast on screen, top first, moved up with its toast as older toasts expire.
+    private final List<Toast> toastTextShown = new ArrayList<>(); // The toast each toast text was laid out for.
+    private final List<BitmapFontCache> spareToastText = new ArrayList<>(); // Text from toasts which have gone, reused for new toasts.
+    private BitmapFontCache overlayText;
+    private int overlayShown = -1; // Which overlay the overlay text was laid out for, -1 if none.
+    private final int[] overlayValuesShown = new int[4]; // The numbers shown on the overlay when it was laid out.
+
+    /**
+     * Create the batches and font.
+     * These are set up before the world, so the loading screen can be drawn while the map and textures load.
+     */
+    public void initUI() {
+        this.worldBatch = new SpriteBatch();
+        this.uiBatch = new SpriteBatch();
+        this.font = new BitmapFont();
+        this.clockText = font.newFontCache();
+        this.overlayText = font.newFontCache();
+    }
 
     /**
      * Takes and tileset and sets up a renderer to display it.
+     * Call initUI first.
+     * The world frame is WORLDSCALE times the size of the camera's view, so entities are drawn at the size of their textures.
+     * The map comes from the {@link MapCache}, so it is shared with the rest of the game rather than loaded again.
      * @param tmxPath - The path to the tileset (.tmx file).
      * @param viewportWidth - how many pixels wide the world is. 
      * @param viewportHeight - how many pixels high the world is. 
@@ -41,23 +164,46 @@ public class RenderingSystem {
         this.camera = new OrthographicCamera();
         this.camera.setToOrtho(false, viewportWidth, viewportHeight);
         this.camera.update();
-        this.viewport = new FitViewport(viewportWidth, viewportHeight, camera);
-        map = new TmxMapLoader().load(tmxPath);
+        this.worldFrame = new FrameBuffer(Pixmap.Format.RGBA8888, (int) (viewportWidth * WORLDSCALE), (int) (viewportHeight * WORLDSCALE), false);
+        this.worldFrameRegion = createFrameRegion(worldFrame);
+        this.uiBatch.getProjectionMatrix().setToOrtho2D(0, 0, worldFrame.getWidth(), worldFrame.getHeight()); // the HUD and overlays are laid out on the world frame.
+        placeWorldFrame(); // the window may have been resized while loading.
+        this.tmxPath = tmxPath;
+        map = MapCache.acquire(tmxPath);
         this.mapRenderer = new OrthogonalTiledMapRenderer(map);
-        this.missingTexture = new Texture("missingTexture.png");
-        this.worldBatch = new SpriteBatch();
-        this.uiBatch = new SpriteBatch();
-        this.font = new BitmapFont();
+        this.mapWidth = map.getProperties().get("width", Integer.class) * map.getProperties().get("tilewidth", Integer.class);
+        this.mapHeight = map.getProperties().get("height", Integer.class) * map.getProperties().get("tileheight", Integer.class);
+        this.chunkPixels = CHUNKSIZE * map.getProperties().get("tilewidth", Integer.class);
+        this.chunksAcross = (mapWidth + chunkPixels - 1) / chunkPixels;
+        this.chunksDown = (mapHeight + chunkPixels - 1) / chunkPixels;
+        // Enough for every chunk the screen can overlap at once, twice over so chunks just scrolled past are kept.
+        int chunksOnScreen = (viewportWidth / chunkPixels + 2) * (viewportHeight / chunkPixels + 2);
+        this.maxChunks = Math.min(chunksAcross * chunksDown, 2 * chunksOnScreen);
+        this.bakeCamera = new OrthographicCamera();
+        this.bakeCamera.setToOrtho(false, chunkPixels, chunkPixels);
+        this.missingTexture = TextureCache.acquireAtlas(TextureCache.GAMEATLAS).findRegion("missingTexture");
     }
 
     public OrthogonalTiledMapRenderer getMapRenderer() { return mapRenderer; }
 
+    /**
+     * @return A region showing the whole of a framebuffer, flipped as framebuffers are stored upside down.
+     */
+    private static TextureRegion createFrameRegion(FrameBuffer frame) {
+        Texture texture = frame.getColorBufferTexture();
+        texture.setFilter(Texture.TextureFilter.Nearest, Texture.TextureFilter.Nearest);
+        TextureRegion region = new TextureRegion(texture);
+        region.flip(false, true);
+        return region;
+    }
+
     /**
      * Hide a layer so that tiles on it are NOT rendered. 
      * @param name - The name of the layer.
      */
     public static void hideLayer(String name) {
         map.getLayers().get(name).setVisible(false);
+        markLayerDirty(name);
     }
 
     /**
@@ -66,6 +212,140 @@ public class RenderingSystem {
      */
     public static void showLayer(String name) {
         map.getLayers().get(name).setVisible(true);
+        markLayerDirty(name);
+    }
+
+    /**
+     * Make every chunk bake the stack of layers containing a layer again when it is next drawn, and drawIdle draw the world again.
+     * @param name - The name of the layer which changed.
+     */
+    private static void markLayerDirty(String name) {
+        int index = map.getLayers().getIndex(name);
+        if (index <= BELOWPLAYER[BELOWPLAYER.length - 1]) belowPlayerVersion++;
+        else abovePlayerVersion++;
+    }
+
+    /**
+     * Move the camera to follow the player, without showing past the edges of the map.
+     * If the map is smaller than the screen it is centred instead.
+     * @param player - The player to follow.
+     */
+    private void followPlayer(Player player) {
+        float halfWidth = camera.viewportWidth * camera.zoom / 2f;
+        float halfHeight = camera.viewportHeight * camera.zoom / 2f;
+        float x = (player.getX() + player.getWidth() / 2f) / WORLDSCALE;
+        float y = (player.getY() + player.getHeight() / 2f) / WORLDSCALE;
+        camera.position.x = mapWidth <= 2 * halfWidth ? mapWidth / 2f : MathUtils.clamp(x, halfWidth, mapWidth - halfWidth);
+        camera.position.y = mapHeight <= 2 * halfHeight ? mapHeight / 2f : MathUtils.clamp(y, halfHeight, mapHeight - halfHeight);
+        camera.update();
+        worldProjection.set(camera.combined).scl(1 / WORLDSCALE, 1 / WORLDSCALE, 1);
+        worldViewArea.set((camera.position.x - halfWidth) * WORLDSCALE, (camera.position.y - halfHeight) * WORLDSCALE,
+            halfWidth * 2 * WORLDSCALE, halfHeight * 2 * WORLDSCALE);
+    }
+
+    /**
+     * Find the chunks the camera can see, baking any which are new or out of date.
+     * Only these are drawn, so the cost of a frame depends on the size of the screen and not the map.
+     */
+    private void prepareVisibleChunks() {
+        if (useTileShader) return;
+        frameNumber++;
+        visibleChunks.clear();
+        float halfWidth = camera.viewportWidth * camera.zoom / 2f;
+        float halfHeight = camera.viewportHeight * camera.zoom / 2f;
+        int firstX = Math.max(0, MathUtils.floor((camera.position.x - halfWidth) / chunkPixels));
+        int lastX = Math.min(chunksAcross - 1, MathUtils.floor((camera.position.x + halfWidth) / chunkPixels));
+        int firstY = Math.max(0, MathUtils.floor((camera.position.y - halfHeight) / chunkPixels));
+        int lastY = Math.min(chunksDown - 1, MathUtils.floor((camera.position.y + halfHeight) / chunkPixels));
+        for (int chunkY = firstY; chunkY <= lastY; chunkY++) {
+            for (int chunkX = firstX; chunkX <= lastX; chunkX++) {
+                Chunk chunk = getChunk(chunkX, chunkY);
+                if (chunk.belowPlayerVersion != belowPlayerVersion) {
+                    bakeLayers(chunk, chunk.belowPlayerFrame, BELOWPLAYER);
+                    chunk.belowPlayerVersion = belowPlayerVersion;
+                }
+                if (chunk.abovePlayerVersion != abovePlayerVersion) {
+                    bakeLayers(chunk, chunk.abovePlayerFrame, ABOVEPLAYER);
+                    chunk.abovePlayerVersion = abovePlayerVersion;
+                }
+                visibleChunks.add(chunk);
+            }
+        }
+    }
+
+    /**
+     * Get the cached chunk at a position, reusing the least recently drawn chunk if it has not been baked.
+     * @param chunkX - How many chunks from the left of the map.
+     * @param chunkY - How many chunks from the bottom of the map.
+     * @return The chunk, which may still need baking.
+     */
+    private Chunk getChunk(int chunkX, int chunkY) {
+        int key = chunkY * chunksAcross + chunkX;
+        Chunk chunk = chunks.get(key);
+        if (chunk == null) {
+            if (chunkPool.size() < maxChunks) {
+                chunk = new Chunk(chunkPixels);
+                chunkPool.add(chunk);
+            }
+            else {
+                chunk = chunkPool.get(0); // reuse the chunk drawn longest ago, with an index loop as an iterator would be garbage.
+                for (int i = 1; i < chunkPool.size(); i++) {
+                    Chunk c = chunkPool.get(i);
+                    if (c.lastDrawn < chunk.lastDrawn) chunk = c;
+                }
+                chunks.remove(chunk.key);
+            }
+            chunk.key = key;
+            chunk.x = chunkX * chunkPixels;
+            chunk.y = chunkY * chunkPixels;
+            chunk.belowPlayerVersion = -1;
+            chunk.abovePlayerVersion = -1;
+            chunks.put(key, chunk);
+        }
+        chunk.lastDrawn = frameNumber;
+        return chunk;
+    }
+
+    /**
+     * Draw a chunk's stack of layers into a framebuffer. 
+     * Colours are stored premultiplied by alpha, so see-through edges look the same as drawing the tiles directly.
+     * @param chunk - The chunk being baked.
+     * @param frame - The framebuffer to draw into.
+     * @param layers - The indexes of the layers to draw.
+     */
+    private void bakeLayers(Chunk chunk, FrameBuffer frame, int[] layers) {
+        bakeCamera.position.set(chunk.x + chunkPixels / 2f, chunk.y + chunkPixels / 2f, 0);
+        bakeCamera.update();
+        frame.begin();
+        ScreenUtils.clear(0, 0, 0, 0);
+        Batch batch = mapRenderer.getBatch();
+        batch.setBlendFunctionSeparate(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA, GL20.GL_ONE, GL20.GL_ONE_MINUS_SRC_ALPHA);
+        mapRenderer.setView(bakeCamera);
+        mapRenderer.render(layers);
+        batch.setBlendFunction(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+        frame.end();
+    }
+
+    /**
+     * Draw the baked stack of layers for every chunk on screen. 
+     * @param belowPlayer - Wether to draw the layers below the player, or the ones above.
+     */
+    private void drawLayers(boolean belowPlayer) {
+        if (useTileShader) {
+            if (shaderRenderer == null) shaderRenderer = new ShaderTileMapRenderer(map);
+            shaderRenderer.render(camera, belowPlayer ? BELOWPLAYER : ABOVEPLAYER);
+            return;
+        }
+        Batch batch = mapRenderer.getBatch();
+        batch.setProjectionMatrix(camera.combined);
+        batch.setBlendFunction(GL20.GL_ONE, GL20.GL_ONE_MINUS_SRC_ALPHA); // the colours are already premultiplied.
+        batch.begin();
+        for (int i = 0; i < visibleChunks.size(); i++) {
+            Chunk chunk = visibleChunks.get(i);
+            batch.draw(belowPlayer ? chunk.belowPlayerRegion : chunk.abovePlayerRegion, chunk.x, chunk.y, chunkPixels, chunkPixels);
+        }
+        batch.end();
+        batch.setBlendFunction(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
     }
 
     /**
@@ -74,85 +354,262 @@ public class RenderingSystem {
      * @param dean - The dean object. 
      * @param showCollision - Wether to render the zones for collision / triggers (dev mode).
      * @param elapsedTime - How much time has passed since the game began. 
-     * @param worldCollision - A list of rectangles representing the games collison. 
+     * @param collisionSystem - The system holding the games collison. 
+     */
+    public void draw(Player player, Dean dean, boolean showCollision, float elapsedTime, CollisionSystem collisionSystem) {
+        AnimatedEntity.advanceClock(Gdx.graphics.getDeltaTime());
+        followPlayer(player);
+        prepareVisibleChunks(); // framebuffers can't be nested, so bake before drawing into the world frame.
+        drawWorld(player, dean, showCollision, collisionSystem);
+        worldFrameStale = true;
+        drawWorldFrame();
+        drawHud();
+    }
+
+    /**
+     * Draw a frame while the game is not being played (not started, paused, won or lost), when nothing in the world moves.
+     * The world frame from the last frame is reused, so only it and the HUD are drawn.
+     * The world is drawn again if the game was played since, the collision is toggled, or a layer, the collision or the triggers changed
+     * (e.g. an interact trigger opening a door while paused).
+     * @param player - The current player object.
+     * @param dean - The dean object. 
+     * @param showCollision - Wether to render the zones for collision / triggers (dev mode).
+     * @param collisionSystem - The system holding the games collison. 
+     */
+    public void drawIdle(Player player, Dean dean, boolean showCollision, CollisionSystem collisionSystem) {
+        listenTo(collisionSystem);
+        if (worldFrameStale || worldFrameShowsCollision != showCollision
+            || worldFrameBelowPlayerVersion != belowPlayerVersion || worldFrameAbovePlayerVersion != abovePlayerVersion
+            || (showCollision && worldFrameTriggerVersion != TriggerSystem.getVersion())) {
+            followPlayer(player);
+            prepareVisibleChunks();
+            drawWorld(player, dean, showCollision, collisionSystem);
+            worldFrameStale = false;
+            worldFrameShowsCollision = showCollision;
+            worldFrameBelowPlayerVersion = belowPlayerVersion;
+            worldFrameAbovePlayerVersion = abovePlayerVersion;
+            worldFrameTriggerVersion = TriggerSystem.getVersion();
+        }
+        drawWorldFrame();
+        drawHud();
+    }
+
+    /**
+     * Start listening to a collision system for changes, so drawIdle knows to draw the world again.
+     * @param collisionSystem - The system holding the games collison, which may be null.
      */
-    public void draw(Player player, Dean dean, boolean showCollision, float elapsedTime, List<Rectangle> worldCollision) {
+    private void listenTo(CollisionSystem collisionSystem) {
+        if (collisionSystem == listenedCollision) return;
+        if (listenedCollision != null) listenedCollision.removeListener(collisionChanged);
+        if (collisionSystem != null) collisionSystem.addListener(collisionChanged);
+        listenedCollision = collisionSystem;
+        worldFrameStale = true;
+    }
+
+    /**
+     * Draw the map, entities and (if shown) collision into the world frame, with the camera's view. 
+     * @param player - The current player object.
+     * @param dean - The dean object. 
+     * @param showCollision - Wether to render the zones for collision / triggers (dev mode).
+     * @param collisionSystem - The system holding the games collison. 
+     */
+    private void drawWorld(Player player, Dean dean, boolean showCollision, CollisionSystem collisionSystem) {
+        worldFrame.begin();
         ScreenUtils.clear(Color.BLACK);
-        viewport.apply();
 
-        camera.update();
-        mapRenderer.setView(camera);
-        int[] belowPlayer = {0, 1, 2, 3, 4, 5, 6}; // the layers which should appear below the player
-        mapRenderer.render(belowPlayer);
+        drawLayers(true);
 
+        worldBatch.setProjectionMatrix(worldProjection);
         worldBatch.begin();
-        player.draw(worldBatch);
-        dean.draw(worldBatch);
+        float focusX = player.getX() + player.getWidth() / 2f; // animations far from the player are updated less often.
+        float focusY = player.getY() + player.getHeight() / 2f;
+        player.draw(worldBatch, worldViewArea, focusX, focusY);
+        dean.draw(worldBatch, worldViewArea, focusX, focusY);
         worldBatch.end();
 
-        int[] abovePlayer = {7, 8, 9, 10, 11, 12, 13, 14, 15}; // the layers which should appear above the player
-        mapRenderer.render(abovePlayer);
-        uiBatch.begin();
-        font.draw(uiBatch, TimerSystem.getClockDisplay(), 10, 640 - 10);
+        drawLayers(false);
 
-        renderToasts(font, uiBatch);
+        if (showCollision && collisionSystem != null) { // show collisions for debugging, over the world so they move with the camera.
+            if (debugRenderer == null) debugRenderer = new DebugRenderer(collisionSystem);
+            debugRenderer.draw(worldProjection, player, dean);
+        }
+        worldFrame.end();
+    }
+
+    /**
+     * Scale the world frame up to the window, with black bars around it, using nearest filtering so pixels stay sharp.
+     * Afterwards the GL viewport is left on the world frame's area, so the HUD and overlays line up with the world.
+     */
+    private void drawWorldFrame() {
+        int windowWidth = Gdx.graphics.getBackBufferWidth();
+        int windowHeight = Gdx.graphics.getBackBufferHeight();
+        ScreenUtils.clear(Color.BLACK);
+        Gdx.gl.glViewport(0, 0, windowWidth, windowHeight);
+        windowProjection.setToOrtho2D(0, 0, windowWidth, windowHeight);
+        worldBatch.setProjectionMatrix(windowProjection);
+        worldBatch.disableBlending(); // the world frame is solid, so there is nothing to blend with.
+        worldBatch.begin();
+        worldBatch.draw(worldFrameRegion, frameX, frameY, frameWidth, frameHeight);
+        worldBatch.end();
+        worldBatch.enableBlending();
+        Gdx.gl.glViewport(frameX, frameY, frameWidth, frameHeight);
+    }
 
-        if (showCollision && worldCollision != null) { // show collisions for debugging
-            renderCollision(uiBatch, worldCollision, player, dean);
-            renderTriggers(uiBatch);
+    /**
+     * Work out where the world frame goes on the window, centred and as big as it can be.
+     */
+    private void placeWorldFrame() {
+        int windowWidth = Gdx.graphics.getBackBufferWidth(); // GL works in back buffer pixels, which can be more than the window's size on high DPI screens.
+        int windowHeight = Gdx.graphics.getBackBufferHeight();
+        float scale = getFrameScale(windowWidth, windowHeight, worldFrame.getWidth(), worldFrame.getHeight());
+        frameWidth = Math.round(worldFrame.getWidth() * scale);
+        frameHeight = Math.round(worldFrame.getHeight() * scale);
+        frameX = (windowWidth - frameWidth) / 2;
+        frameY = (windowHeight - frameHeight) / 2;
+    }
+
+    /**
+     * How much the world frame should be scaled to fit the window. 
+     * This is a whole number whenever the window is at least the size of the frame, so every pixel of the frame is the same size on screen,
+     * and the rest of the window is left as black bars around it.
+     * In smaller windows the frame is shrunk to fit instead.
+     * @param windowWidth - How many pixels wide the window is. 
+     * @param windowHeight - How many pixels high the window is. 
+     * @param worldFrameWidth - How many pixels wide the world frame is. 
+     * @param worldFrameHeight - How many pixels high the world frame is. 
+     * @return The scale.
+     */
+    static float getFrameScale(int windowWidth, int windowHeight, int worldFrameWidth, int worldFrameHeight) {
+        float scale = Math.min(windowWidth / (float) worldFrameWidth, windowHeight / (float) worldFrameHeight);
+        return scale >= MININTEGERSCALE ? MathUtils.floor(scale) : scale;
+    }
+
+    /**
+     * Draw the clock and toasts over the top of the world.
+     */
+    private void drawHud() {
+        uiBatch.begin();
+        String clockDisplay = TimerSystem.getClockDisplay();
+        if (clockDisplay != clockTextShown) { // the clock only gives a new String when the time left changes.
+            clockText.setText(clockDisplay, 10, 640 - 10);
+            clockTextShown = clockDisplay;
         }
+        clockText.draw(uiBatch);
+        renderToasts(font, uiBatch);
         uiBatch.end();
     }
 
     /**
      * Render the toast display on the top left of the screen. 
      * This is used to display text messages to the user for 5s. 
+     * Each toast is only laid out when it first appears, and its text is moved up with it as older toasts expire.
      * @param font The BitmapFont which used to render the text. 
      * @param uiBatch - The SpriteBatch used for this (should be the ui batch).
      */
     public void renderToasts(BitmapFont font, SpriteBatch uiBatch) {
         ToastSystem.clearExpiredToasts();
         List<Toast> toasts = ToastSystem.getToasts();
-        int offset = 0;
 
-        for (Toast t : toasts) {
-            offset += 30;
-            font.setColor(t.getColour());
-            font.draw(uiBatch, t.getText(), 10, (640 - 10) - offset);
+        for (int i = 0; i < toasts.size(); i++) {
+            Toast t = toasts.get(i);
+            // Toasts keep their order and new ones go on the end, so text in this slot for a different toast belongs to one which has gone.
+            while (i < toastTextShown.size() && toastTextShown.get(i) != t) {
+                toastTextShown.remove(i);
+                spareToastText.add(toastText.remove(i));
+            }
+            if (i == toastText.size()) {
+                BitmapFontCache text = spareToastText.isEmpty() ? font.newFontCache() : spareToastText.remove(spareToastText.size() - 1);
+                text.setColor(t.getColour());
+                text.setText(t.getText(), 0, 0);
+                toastText.add(text);
+                toastTextShown.add(t);
+            }
+            BitmapFontCache text = toastText.get(i);
+            text.setPosition(10, (640 - 10) - 30 * (i + 1));
+            text.draw(uiBatch);
+        }
+        while (toastTextShown.size() > toasts.size()) { // the newest toasts have gone too.
+            toastTextShown.remove(toastTextShown.size() - 1);
+            spareToastText.add(toastText.remove(toastText.size() - 1));
         }
-        font.setColor(1, 1, 1, 1);
     }
 
     /**
-     * Render the zones for collision / triggers (dev mode).
-     * @param uiBatch - The SpriteBatch used for this (should be the ui batch).
-     * @param worldCollision - A list of rectangles representing the games collison. 
-     * @param player
-     * @param dean
-     */
-    public void renderCollision(SpriteBatch uiBatch, List<Rectangle> worldCollision, Player player, Dean dean) {
-        for (Rectangle rectangle : worldCollision) {
-            uiBatch.setColor(1, 0, 0, 0.75f);
-            uiBatch.draw(missingTexture, rectangle.x, rectangle.y , rectangle.width, rectangle.height);
-        }
-        uiBatch.draw(missingTexture, player.getHitbox().x + 16, player.getHitbox().y+ 16, player.getHitbox().width, player.getHitbox().height);
-        uiBatch.draw(missingTexture, dean.getReachRectangle().x + 16, dean.getReachRectangle().y+ 16, dean.getReachRectangle().width, dean.getReachRectangle().height);
+     * Check wether the overlay text needs laying out again, and clear it if it does.
+     * @param overlay - Which overlay is being drawn (e.g. PAUSEOVERLAY).
+     * @param a - The numbers shown on the overlay, 0 if unused.
+     * @param b
+     * @param c
+     * @param d
+     * @return Wether the overlay text was cleared, and should be laid out again.
+     */
+    private boolean overlayChanged(int overlay, int a, int b, int c, int d) {
+        if (overlay == overlayShown && overlayValuesShown[0] == a && overlayValuesShown[1] == b
+            && overlayValuesShown[2] == c && overlayValuesShown[3] == d) return false;
+        overlayShown = overlay;
+        overlayValuesShown[0] = a;
+        overlayValuesShown[1] = b;
+        overlayValuesShown[2] = c;
+        overlayValuesShown[3] = d;
+        overlayText.clear();
+        overlayText.setColor(1, 1, 1, 1);
+        return true;
     }
 
     /**
-     * Render the zones for triggers (dev mode).
-     * @param uiBatch - The SpriteBatch used for this (should be the ui batch).
+     * Switch between drawing the tile layers from baked chunks and drawing them with the tile map shader.
      */
-    public void renderTriggers(SpriteBatch uiBatch) {
-        for (Trigger t : TriggerSystem.getTriggers()) {
-            Rectangle rectangle = t.getZone();
-            uiBatch.setColor(0, 1, 1, 0.75f);
-            uiBatch.draw(missingTexture, rectangle.x, rectangle.y , rectangle.width, rectangle.height);
-        }
+    public void toggleTileShader() {
+        useTileShader = !useTileShader;
+        worldFrameStale = true;
     }
 
     public void resize(int width, int height) {
-        viewport.update(width, height);
+        if (worldFrame != null) placeWorldFrame();
+    }
+
+    /**
+     * Free everything the renderer loaded, and release its hold on the map.
+     * The world may not have been set up yet if the game is closed while loading.
+     */
+    public void dispose() {
+        if (mapRenderer != null) {
+            for (int i = 0; i < chunkPool.size(); i++) {
+                chunkPool.get(i).dispose();
+            }
+            chunkPool.clear();
+            chunks.clear();
+            worldFrame.dispose();
+            if (shaderRenderer != null) shaderRenderer.dispose();
+            if (debugRenderer != null) debugRenderer.dispose();
+            listenTo(null);
+            mapRenderer.dispose();
+            TextureCache.releaseAtlas(TextureCache.GAMEATLAS);
+            MapCache.release(tmxPath);
+        }
+        worldBatch.dispose();
+        uiBatch.dispose();
+        font.dispose();
+    }
+
+    /**
+     * Display the loading screen, showing how much of the game has loaded.
+     * @param screenWidth - how many pixels wide the screen is. 
+     * @param screenHeight - how many pixels high the screen is. 
+     * @param progress - How much has loaded, from 0 to 1.
+     */
+    public void renderLoadingScreen(int screenWidth, int screenHeight, float progress) {
+        int percent = (int) (progress * 100);
+        if (overlayChanged(LOADINGSCREEN, percent, 0, 0, 0)) {
+            font.getData().setScale(2f);
+            overlayText.addText("Escape from Uni", screenWidth / 2f, (screenHeight / 2f) + 40);
+            font.getData().setScale(1f);
+            overlayText.addText("Loading... " + percent + "%", screenWidth / 2f, screenHeight / 2f);
+        }
+        ScreenUtils.clear(Color.BLACK);
+        uiBatch.begin();
+        overlayText.draw(uiBatch);
+        uiBatch.end();
     }
 
     /**
@@ -164,20 +621,16 @@ public class RenderingSystem {
      * @param hiddenEventCounter - Number of secrets found.
      */
     public void renderPauseOverlay(int screenWidth, int screenHeight, int positiveEventCounter, int negativeEventCounter, int hiddenEventCounter) {
-        uiBatch.begin();
-        uiBatch.setColor(0, 0, 0, 0.5f);
-        uiBatch.draw(missingTexture, 0, 0, screenWidth, screenHeight);
-        uiBatch.setColor(1, 1, 1, 1);
-
-        font.getData().setScale(2f);
-        font.draw(uiBatch, "Escape from Uni", screenWidth / 2f, (screenHeight / 2f) + 40);
-        font.draw(uiBatch, "Instructions", screenWidth / 2f, (screenHeight / 2f) - 120);
-        font.draw(uiBatch, "Stats", screenWidth / 2f, (screenHeight / 2f) - 200);
-        font.getData().setScale(1f);
-        renderControls(screenWidth, screenHeight);
-        renderStats(screenWidth, screenHeight, positiveEventCounter, negativeEventCounter, hiddenEventCounter);
-        
-        uiBatch.end();
+        if (overlayChanged(PAUSEOVERLAY, positiveEventCounter, negativeEventCounter, hiddenEventCounter, 0)) {
+            font.getData().setScale(2f);
+            overlayText.addText("Escape from Uni", screenWidth / 2f, (screenHeight / 2f) + 40);
+            overlayText.addText("Instructions", screenWidth / 2f, (screenHeight / 2f) - 120);
+            overlayText.addText("Stats", screenWidth / 2f, (screenHeight / 2f) - 200);
+            font.getData().setScale(1f);
+            addControls(screenWidth, screenHeight);
+            addStats(screenWidth, screenHeight, positiveEventCounter, negativeEventCounter, hiddenEventCounter);
+        }
+        renderOverlay(screenWidth, screenHeight);
     }
 
     /**
@@ -186,53 +639,62 @@ public class RenderingSystem {
      * @param screenHeight - how many pixels high the screen is. 
      */
     public void renderStartOverlay(int screenWidth, int screenHeight) {
+        if (overlayChanged(STARTOVERLAY, 0, 0, 0, 0)) {
+            font.getData().setScale(2f);
+            overlayText.addText("Escape from Uni", screenWidth / 2f, (screenHeight / 2f) + 40);
+            overlayText.addText("Instructions", screenWidth / 2f, (screenHeight / 2f) - 120);
+
+            overlayText.setColor(0, 1, 1, 1);
+            overlayText.addText("Press Space to Start!", screenWidth / 2f, (screenHeight / 2f) - 200);
+            overlayText.setColor(1, 1, 1, 1);
+
+            font.getData().setScale(1f);
+            addControls(screenWidth, screenHeight);
+            overlayText.addText("Avoid the dean and escape the maze in time!", screenWidth / 2f, (screenHeight / 2f) - 160);
+        }
+        renderOverlay(screenWidth, screenHeight);
+    }
+
+    /**
+     * Darken the screen and draw the laid out overlay text over it.
+     * @param screenWidth - how many pixels wide the screen is. 
+     * @param screenHeight - how many pixels high the screen is. 
+     */
+    private void renderOverlay(int screenWidth, int screenHeight) {
         uiBatch.begin();
         uiBatch.setColor(0, 0, 0, 0.5f);
         uiBatch.draw(missingTexture, 0, 0, screenWidth, screenHeight);
         uiBatch.setColor(1, 1, 1, 1);
-
-        font.getData().setScale(2f);
-        font.draw(uiBatch, "Escape from Uni", screenWidth / 2f, (screenHeight / 2f) + 40);
-        font.draw(uiBatch, "Instructions", screenWidth / 2f, (screenHeight / 2f) - 120);
-        
-        font.setColor(0, 1, 1, 1);
-        font.draw(uiBatch, "Press Space to Start!", screenWidth / 2f, (screenHeight / 2f) - 200);
-        font.setColor(1, 1, 1, 1);
-
-        font.getData().setScale(1f);
-        renderControls(screenWidth, screenHeight);
-        font.draw(uiBatch, "Avoid the dean and escape the maze in time!", screenWidth / 2f, (screenHeight / 2f) - 160);
-        
-
+        overlayText.draw(uiBatch);
         uiBatch.end();
     }
 
     /**
-     * Render the controls list, tellign you all the buttons and what they do. 
+     * Add the controls list to the overlay text, telling you all the buttons and what they do. 
      * @param screenWidth - how many pixels wide the screen is. 
      * @param screenHeight - how many pixels high the screen is. 
      */
-    private void renderControls(int screenWidth, int screenHeight) {
-        font.draw(uiBatch, "Press P to pause / resume!", screenWidth / 2f, screenHeight / 2f);
-        font.draw(uiBatch, "Press ESC to quit.", screenWidth / 2f, (screenHeight / 2f) - 20);
-        font.draw(uiBatch, "Press E to interact.", screenWidth / 2f, (screenHeight / 2f) - 40);
-        font.draw(uiBatch, "Use WASD or arrow keys to move.", screenWidth / 2f, (screenHeight / 2f) - 60);
-        font.draw(uiBatch, "Press P to pause!", screenWidth / 2f, screenHeight / 2f);
-        font.draw(uiBatch, "Press F11 to Fullscreen.", screenWidth / 2f, (screenHeight / 2f) - 80);
+    private void addControls(int screenWidth, int screenHeight) {
+        overlayText.addText("Press P to pause / resume!", screenWidth / 2f, screenHeight / 2f);
+        overlayText.addText("Press ESC to quit.", screenWidth / 2f, (screenHeight / 2f) - 20);
+        overlayText.addText("Press E to interact.", screenWidth / 2f, (screenHeight / 2f) - 40);
+        overlayText.addText("Use WASD or arrow keys to move.", screenWidth / 2f, (screenHeight / 2f) - 60);
+        overlayText.addText("Press P to pause!", screenWidth / 2f, screenHeight / 2f);
+        overlayText.addText("Press F11 to Fullscreen.", screenWidth / 2f, (screenHeight / 2f) - 80);
     }
 
     /**
-     * Render the Stats at the bottom of the overlay, showing PowerUps collected, times caught and secrets found.
+     * Add the Stats at the bottom of the overlay text, showing PowerUps collected, times caught and secrets found.
      * @param screenWidth - how many pixels wide the screen is. 
      * @param screenHeight - how many pixels high the screen is. 
      * @param positiveEventCounter - Number of PowerUps collected.
      * @param negativeEventCounter - Number of times caught by the dean.
      * @param hiddenEventCounter - Number of secrets found.
      */
-    private void renderStats(int screenWidth, int screenHeight, int positiveEventCounter, int negativeEventCounter, int hiddenEventCounter) {
-        font.draw(uiBatch, "PowerUps Collected: " + positiveEventCounter, screenWidth / 2f, (screenHeight / 2f) - 240);
-        font.draw(uiBatch, "Dean Captures: " + negativeEventCounter, screenWidth / 2f, (screenHeight / 2f) - 260);
-        font.draw(uiBatch, "Secrets Found: " + hiddenEventCounter, screenWidth / 2f, (screenHeight / 2f) - 280);
+    private void addStats(int screenWidth, int screenHeight, int positiveEventCounter, int negativeEventCounter, int hiddenEventCounter) {
+        overlayText.addText("PowerUps Collected: " + positiveEventCounter, screenWidth / 2f, (screenHeight / 2f) - 240);
+        overlayText.addText("Dean Captures: " + negativeEventCounter, screenWidth / 2f, (screenHeight / 2f) - 260);
+        overlayText.addText("Secrets Found: " + hiddenEventCounter, screenWidth / 2f, (screenHeight / 2f) - 280);
     }
 
     /**
@@ -246,22 +708,19 @@ public class RenderingSystem {
      * @param hiddenEventCounter - Number of secrets found.
      */
     public void renderWinOverlay(int screenWidth, int screenHeight, float timeLeft, int score, int positiveEventCounter, int negativeEventCounter, int hiddenEventCounter) {
-        uiBatch.begin();
-        uiBatch.setColor(0, 0, 0, 0.5f);
-        uiBatch.draw(missingTexture, 0, 0, screenWidth, screenHeight);
-        uiBatch.setColor(1, 1, 1, 1);
-
-        font.getData().setScale(2f);
-        font.draw(uiBatch, "Stats", screenWidth / 2f, (screenHeight / 2f) - 200);
-        font.setColor(0, 1, 1, 1);
-        font.draw(uiBatch, "YOU WIN!", screenWidth / 2f, (screenHeight / 2f) + 40);
-        font.setColor(1, 1, 1, 1);
-        font.getData().setScale(1f);
-        font.draw(uiBatch, TimerSystem.getClockDisplay(), screenWidth / 2f, screenHeight / 2f);
-        font.draw(uiBatch, "Score: " + Integer.toString(score), screenWidth / 2f, (screenHeight / 2f) - 20);
-        font.draw(uiBatch, "Press ESC to quit.", screenWidth / 2f, (screenHeight / 2f) - 40);
-        renderStats(screenWidth, screenHeight, positiveEventCounter, negativeEventCounter, hiddenEventCounter);
-        uiBatch.end();
+        if (overlayChanged(WINOVERLAY, score, positiveEventCounter, negativeEventCounter, hiddenEventCounter)) {
+            font.getData().setScale(2f);
+            overlayText.addText("Stats", screenWidth / 2f, (screenHeight / 2f) - 200);
+            overlayText.setColor(0, 1, 1, 1);
+            overlayText.addText("YOU WIN!", screenWidth / 2f, (screenHeight / 2f) + 40);
+            overlayText.setColor(1, 1, 1, 1);
+            font.getData().setScale(1f);
+            overlayText.addText(TimerSystem.getClockDisplay(), screenWidth / 2f, screenHeight / 2f);
+            overlayText.addText("Score: " + Integer.toString(score), screenWidth / 2f, (screenHeight / 2f) - 20);
+            overlayText.addText("Press ESC to quit.", screenWidth / 2f, (screenHeight / 2f) - 40);
+            addStats(screenWidth, screenHeight, positiveEventCounter, negativeEventCounter, hiddenEventCounter);
+        }
+        renderOverlay(screenWidth, screenHeight);
     }
 
     /**
@@ -273,20 +732,17 @@ public class RenderingSystem {
      * @param hiddenEventCounter - Number of secrets found.
      */
     public void renderLoseOverlay(int screenWidth, int screenHeight, int positiveEventCounter, int negativeEventCounter, int hiddenEventCounter) {
-        uiBatch.begin();
-        uiBatch.setColor(0, 0, 0, 0.5f);
-        uiBatch.draw(missingTexture, 0, 0, screenWidth, screenHeight);
-        uiBatch.setColor(1, 1, 1, 1);
-
-        font.getData().setScale(2f);
-        font.draw(uiBatch, "Stats", screenWidth / 2f, (screenHeight / 2f) - 200);
-        font.setColor(1, 0, 0, 1);
-        font.draw(uiBatch, "TIME IS UP!", screenWidth / 2f, (screenHeight / 2f) + 40);
-        font.setColor(1, 1, 1, 1);
-        font.getData().setScale(1f);
-        font.draw(uiBatch, "Better luck next time.", screenWidth / 2f, screenHeight / 2f);
-        font.draw(uiBatch, "Press ESC to quit.", screenWidth / 2f, (screenHeight / 2f) - 40);
-        renderStats(screenWidth, screenHeight, positiveEventCounter, negativeEventCounter, hiddenEventCounter);
-        uiBatch.end();
+        if (overlayChanged(LOSEOVERLAY, positiveEventCounter, negativeEventCounter, hiddenEventCounter, 0)) {
+            font.getData().setScale(2f);
+            overlayText.addText("Stats", screenWidth / 2f, (screenHeight / 2f) - 200);
+            overlayText.setColor(1, 0, 0, 1);
+            overlayText.addText("TIME IS UP!", screenWidth / 2f, (screenHeight / 2f) + 40);
+            overlayText.setColor(1, 1, 1, 1);
+            font.getData().setScale(1f);
+            overlayText.addText("Better luck next time.", screenWidth / 2f, screenHeight / 2f);
+            overlayText.addText("Press ESC to quit.", screenWidth / 2f, (screenHeight / 2f) - 40);
+            addStats(screenWidth, screenHeight, positiveEventCounter, negativeEventCounter, hiddenEventCounter);
+        }
+        renderOverlay(screenWidth, screenHeight);
     }
 }
@@ -0,0 +1,196 @@
+package io.github.eng1group9.systems;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.maps.MapLayer;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
+
+/**
+ * Draws tile layers on the GPU, with one quad per layer no matter how many tiles are on screen.
+ * Each tile layer is stored as an index texture with one pixel per tile, saying where the tile's image is in the atlas.
+ * The fragment shader looks up which tile each pixel is in, then reads the tile's image from the atlas.
+ * GLES 2 has no integer textures, so the atlas position is packed into the RGBA bytes:
+ * R = x (low 8 bits), B = y (low 8 bits), G = x (high 3 bits) + 8 * y (high 3 bits) + 64 * flipped horizontally + 128 * flipped vertically,
+ * A = 255 if there is a tile, 0 if not.
+ * All tiles must be the same size and on the same texture (the map's atlas, see MapCache). Rotated tiles are not supported.
+ */
+public class ShaderTileMapRenderer {
+    private static final int MAXATLASSIZE = 2048; // The largest atlas position which fits in 11 bits.
+
+    private static final String VERTEXSHADER =
+        "attribute vec4 " + ShaderProgram.POSITION_ATTRIBUTE + ";\n"
+        + "attribute vec4 " + ShaderProgram.COLOR_ATTRIBUTE + ";\n"
+        + "attribute vec2 " + ShaderProgram.TEXCOORD_ATTRIBUTE + "0;\n"
+        + "uniform mat4 u_projTrans;\n"
+        + "varying vec4 v_color;\n"
+        + "varying vec2 v_texCoords;\n"
+        + "void main() {\n"
+        + "    v_color = " + ShaderProgram.COLOR_ATTRIBUTE + ";\n"
+        + "    v_color.a = v_color.a * (255.0 / 254.0);\n"
+        + "    v_texCoords = " + ShaderProgram.TEXCOORD_ATTRIBUTE + "0;\n"
+        + "    gl_Position = u_projTrans * " + ShaderProgram.POSITION_ATTRIBUTE + ";\n"
+        + "}\n";
+
+    private static final String FRAGMENTSHADER =
+        "#ifdef GL_FRAGMENT_PRECISION_HIGH\n"
+        + "precision highp float;\n"
+        + "#else\n"
+        + "precision mediump float;\n"
+        + "#endif\n"
+        + "varying vec4 v_color;\n"
+        + "varying vec2 v_texCoords;\n"
+        + "uniform sampler2D u_texture; // the layer's index texture, one pixel per tile\n"
+        + "uniform sampler2D u_atlas;\n"
+        + "uniform vec2 u_mapSize; // in tiles\n"
+        + "uniform vec2 u_atlasSize; // in pixels\n"
+        + "uniform float u_tileSize; // in pixels\n"
+        + "void main() {\n"
+        + "    vec4 index = floor(texture2D(u_texture, v_texCoords) * 255.0 + 0.5);\n"
+        + "    if (index.a < 128.0) discard;\n"
+        + "    float high = index.g;\n"
+        + "    float flipV = step(128.0, high);\n"
+        + "    high -= flipV * 128.0;\n"
+        + "    float flipH = step(64.0, high);\n"
+        + "    high -= flipH * 64.0;\n"
+        + "    float yHigh = floor(high / 8.0);\n"
+        + "    vec2 region = vec2(index.r + (high - yHigh * 8.0) * 256.0, index.b + yHigh * 256.0);\n"
+        + "    vec2 inTile = fract(v_texCoords * u_mapSize);\n"
+        + "    inTile = mix(inTile, 1.0 - inTile, vec2(flipH, flipV));\n"
+        + "    gl_FragColor = v_color * texture2D(u_atlas, (region + inTile * u_tileSize) / u_atlasSize);\n"
+        + "}\n";
+
+    private final TiledMap map;
+    private final ShaderProgram shader;
+    private final SpriteBatch batch;
+    private final Texture[] layerTextures; // The index texture of each layer, null for layers which are not tile layers.
+    private Texture atlasTexture;
+    private final int widthInTiles;
+    private final int heightInTiles;
+    private final int tileSize;
+
+    /**
+     * Build the index textures for every tile layer in a map.
+     * @param map - The map to draw.
+     */
+    public ShaderTileMapRenderer(TiledMap map) {
+        this.map = map;
+        this.widthInTiles = map.getProperties().get("width", Integer.class);
+        this.heightInTiles = map.getProperties().get("height", Integer.class);
+        this.tileSize = map.getProperties().get("tilewidth", Integer.class);
+        this.layerTextures = new Texture[map.getLayers().getCount()];
+        for (int i = 0; i < layerTextures.length; i++) {
+            MapLayer layer = map.getLayers().get(i);
+            if (layer instanceof TiledMapTileLayer) {
+                layerTextures[i] = createIndexTexture((TiledMapTileLayer) layer);
+            }
+        }
+
+        this.shader = new ShaderProgram(VERTEXSHADER, FRAGMENTSHADER);
+        if (!shader.isCompiled()) throw new IllegalStateException("Tile map shader did not compile: " + shader.getLog());
+        this.batch = new SpriteBatch(layerTextures.length, shader);
+    }
+
+    /**
+     * Pack the atlas position of every tile in a layer into a texture.
+     * @param layer - The tile layer.
+     * @return The index texture, one pixel per tile, with the top row of the map first.
+     */
+    private Texture createIndexTexture(TiledMapTileLayer layer) {
+        Pixmap pixmap = new Pixmap(widthInTiles, heightInTiles, Pixmap.Format.RGBA8888);
+        pixmap.setBlending(Pixmap.Blending.None);
+        for (int y = 0; y < heightInTiles; y++) {
+            for (int x = 0; x < widthInTiles; x++) {
+                Cell cell = layer.getCell(x, y);
+                if (cell == null || cell.getTile() == null) {
+                    pixmap.drawPixel(x, heightInTiles - 1 - y, 0);
+                    continue;
+                }
+                TextureRegion region = cell.getTile().getTextureRegion();
+                if (atlasTexture == null) atlasTexture = region.getTexture();
+                if (region.getTexture() != atlasTexture) {
+                    pixmap.dispose();
+                    throw new IllegalStateException("All tiles must be on one texture to be drawn with a shader, check the map's atlas.");
+                }
+                if (region.getRegionWidth() != tileSize || region.getRegionHeight() != tileSize || cell.getRotation() != 0) {
+                    pixmap.dispose();
+                    throw new IllegalStateException("Tile at " + x + "," + y + " in " + layer.getName() + " is not a plain " + tileSize + "px tile.");
+                }
+                pixmap.drawPixel(x, heightInTiles - 1 - y, packTile(region.getRegionX(), region.getRegionY(), cell.getFlipHorizontally(), cell.getFlipVertically()));
+            }
+        }
+        Texture texture = new Texture(pixmap);
+        texture.setFilter(Texture.TextureFilter.Nearest, Texture.TextureFilter.Nearest);
+        pixmap.dispose();
+        return texture;
+    }
+
+    /**
+     * @param regionX - The tile's x position in the atlas, in pixels from the left.
+     * @param regionY - The tile's y position in the atlas, in pixels from the top.
+     * @param flipHorizontally - Wether the tile is mirrored left to right.
+     * @param flipVertically - Wether the tile is mirrored top to bottom.
+     * @return The tile packed into an RGBA8888 colour, see the class description.
+     */
+    static int packTile(int regionX, int regionY, boolean flipHorizontally, boolean flipVertically) {
+        if (regionX >= MAXATLASSIZE || regionY >= MAXATLASSIZE) throw new IllegalArgumentException("Atlas is bigger than " + MAXATLASSIZE + "px.");
+        int high = (regionX >> 8) + 8 * (regionY >> 8) + (flipHorizontally ? 64 : 0) + (flipVertically ? 128 : 0);
+        return (regionX & 255) << 24 | high << 16 | (regionY & 255) << 8 | 255;
+    }
+
+    /**
+     * Draw a stack of layers, one quad per visible layer covering the part of the map the camera can see.
+     * Hidden layers are skipped, so showing and hiding layers costs nothing.
+     * @param camera - The camera looking at the map (in map pixels).
+     * @param layers - The indexes of the layers to draw, bottom first.
+     */
+    public void render(OrthographicCamera camera, int[] layers) {
+        if (atlasTexture == null) return; // the map has no tiles.
+        float mapWidth = widthInTiles * tileSize;
+        float mapHeight = heightInTiles * tileSize;
+        float halfWidth = camera.viewportWidth * camera.zoom / 2f;
+        float halfHeight = camera.viewportHeight * camera.zoom / 2f;
+        float left = Math.max(0, camera.position.x - halfWidth);
+        float right = Math.min(mapWidth, camera.position.x + halfWidth);
+        float bottom = Math.max(0, camera.position.y - halfHeight);
+        float top = Math.min(mapHeight, camera.position.y + halfHeight);
+        if (left >= right || bottom >= top) return;
+
+        atlasTexture.bind(1);
+        Gdx.gl.glActiveTexture(GL20.GL_TEXTURE0); // the batch binds each layer's index texture to unit 0.
+        batch.setProjectionMatrix(camera.combined);
+        batch.begin();
+        shader.setUniformi("u_atlas", 1);
+        shader.setUniformf("u_mapSize", widthInTiles, heightInTiles);
+        shader.setUniformf("u_atlasSize", atlasTexture.getWidth(), atlasTexture.getHeight());
+        shader.setUniformf("u_tileSize", tileSize);
+        for (int index : layers) {
+            MapLayer layer = map.getLayers().get(index);
+            if (layerTextures[index] == null || !layer.isVisible()) continue;
+            batch.setColor(1, 1, 1, layer.getOpacity());
+            // the index texture's top row is the top of the map.
+            batch.draw(layerTextures[index], left, bottom, right - left, top - bottom,
+                left / mapWidth, 1 - bottom / mapHeight, right / mapWidth, 1 - top / mapHeight);
+        }
+        batch.end();
+        batch.setColor(1, 1, 1, 1);
+    }
+
+    /**
+     * Free the index textures, shader and batch. The map and atlas are not disposed.
+     */
+    public void dispose() {
+        for (Texture texture : layerTextures) {
+            if (texture != null) texture.dispose();
+        }
+        batch.dispose();
+        shader.dispose();
+    }
+}
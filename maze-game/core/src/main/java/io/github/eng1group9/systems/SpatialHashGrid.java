@@ -0,0 +1,154 @@
+package io.github.eng1group9.systems;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * A uniform grid which buckets items by the area they cover, so that a query only has to look
+ * at the items in the few cells around it rather than every item in the world.
+ * An item is stored in every cell its bounds overlap. Bounds outside the grid are clamped to the edge cells.
+ * Alongside each item, a cell stores the first (bottom left) cell the item is in, so a query can add each item once
+ * (from the first of its cells inside the query) without searching the results.
+ * @param <T> - The type of item stored in the grid.
+ */
+public class SpatialHashGrid<T> {
+    private final float originX;
+    private final float originY;
+    private final float cellSize;
+    private final int columns;
+    private final int rows;
+    private final List<List<T>> cells;
+    private final List<IntArray> firstCells; // For each item in each cell, the first cell it is in (row * columns + column).
+
+    /**
+     * Create an empty grid covering the given area.
+     * @param originX - The x co-ordinate of the bottom left of the grid.
+     * @param originY - The y co-ordinate of the bottom left of the grid.
+     * @param width - How wide the area covered by the grid is.
+     * @param height - How high the area covered by the grid is.
+     * @param cellSize - The width and height of each cell.
+     */
+    public SpatialHashGrid(float originX, float originY, float width, float height, float cellSize) {
+        this.originX = originX;
+        this.originY = originY;
+        this.cellSize = cellSize;
+        this.columns = Math.max(1, (int) Math.ceil(width / cellSize));
+        this.rows = Math.max(1, (int) Math.ceil(height / cellSize));
+        this.cells = new ArrayList<>(columns * rows);
+        this.firstCells = new ArrayList<>(columns * rows);
+        for (int i = 0; i < columns * rows; i++) {
+            cells.add(new ArrayList<T>());
+            firstCells.add(new IntArray());
+        }
+    }
+
+    /**
+     * Add an item to every cell its bounds overlap.
+     * @param item - The item to add.
+     * @param bounds - The area the item covers.
+     */
+    public void insert(T item, Rectangle bounds) {
+        int minColumn = getColumn(bounds.x);
+        int maxColumn = getColumn(bounds.x + bounds.width);
+        int minRow = getRow(bounds.y);
+        int maxRow = getRow(bounds.y + bounds.height);
+        int firstCell = minRow * columns + minColumn;
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                cells.get(row * columns + column).add(item);
+                firstCells.get(row * columns + column).add(firstCell);
+            }
+        }
+    }
+
+    /**
+     * Remove an item from every cell its bounds overlap.
+     * Items are matched by identity, so two equal Rectangles are never confused.
+     * @param item - The item to remove.
+     * @param bounds - The area the item covered when it was inserted.
+     */
+    public void remove(T item, Rectangle bounds) {
+        int minColumn = getColumn(bounds.x);
+        int maxColumn = getColumn(bounds.x + bounds.width);
+        int minRow = getRow(bounds.y);
+        int maxRow = getRow(bounds.y + bounds.height);
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                List<T> cell = cells.get(row * columns + column);
+                for (int i = 0; i < cell.size(); i++) {
+                    if (cell.get(i) == item) {
+                        cell.remove(i);
+                        firstCells.get(row * columns + column).removeIndex(i);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Collect every item stored in the cells an area overlaps.
+     * The results may include items which are close to, but do not overlap, the area.
+     * @param area - The area to search.
+     * @param results - The list the items are added to, each item is only added once (by identity, so equal Rectangles are kept apart).
+     */
+    public void query(Rectangle area, List<T> results) {
+        int minColumn = getColumn(area.x);
+        int maxColumn = getColumn(area.x + area.width);
+        int minRow = getRow(area.y);
+        int maxRow = getRow(area.y + area.height);
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                List<T> cell = cells.get(row * columns + column);
+                IntArray cellFirstCells = firstCells.get(row * columns + column);
+                for (int i = 0; i < cell.size(); i++) {
+                    // only add the item from the first of its cells that the query covers.
+                    int firstCell = cellFirstCells.get(i);
+                    int firstColumn = Math.max(minColumn, firstCell % columns);
+                    int firstRow = Math.max(minRow, firstCell / columns);
+                    if (column == firstColumn && row == firstRow) results.add(cell.get(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * @param x - The x co-ordinate to look up.
+     * @return The column containing x, clamped to the grid.
+     */
+    public int getColumn(float x) {
+        int column = (int) Math.floor((x - originX) / cellSize);
+        return Math.max(0, Math.min(columns - 1, column));
+    }
+
+    /**
+     * @param y - The y co-ordinate to look up.
+     * @return The row containing y, clamped to the grid.
+     */
+    public int getRow(float y) {
+        int row = (int) Math.floor((y - originY) / cellSize);
+        return Math.max(0, Math.min(rows - 1, row));
+    }
+
+    /**
+     * @param column - The column of the cell.
+     * @param row - The row of the cell.
+     * @return The items stored in a cell. This list should not be changed.
+     */
+    public List<T> getCell(int column, int row) {
+        return cells.get(row * columns + column);
+    }
+
+    public int getColumns() { return columns; }
+
+    public int getRows() { return rows; }
+
+    public float getCellSize() { return cellSize; }
+
+    public float getOriginX() { return originX; }
+
+    public float getOriginY() { return originY; }
+}
@@ -0,0 +1,359 @@
+package io.github.eng1group9.systems;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+import com.badlogic.gdx.math.Rectangle;
+
+/**
+ * A read-only R-tree over a set of rectangles, bulk loaded with Sort-Tile-Recursive (STR) packing.
+ * Rectangles are sorted into vertical slices by x, then by y within each slice, and packed into full leaves,
+ * so nearby rectangles share a leaf no matter how big or small they are.
+ * Nodes are stored in flat arrays (leaves first, root last) and searched with a reused stack, so queries create no garbage.
+ * The rectangles' bounds are also copied into packed float arrays in leaf order, so a leaf is checked by one tight loop
+ * over contiguous memory rather than by following references to Rectangles spread around the heap.
+ * Each rectangle has a category (a bit mask), and every node stores all the categories below it,
+ * so a query that only wants some categories can skip whole branches without looking at their rectangles.
+ * The tree cannot be changed once built, it is meant for collision which never moves.
+ */
+public class StaticRTree {
+    private static final int NODECAPACITY = 16; // How many children each node has (except the last one on each level).
+
+    private final Rectangle[] items; // The rectangles, in the order they are packed into leaves.
+    private final float[] itemX; // The bounds of each item, in the same order.
+    private final float[] itemY;
+    private final float[] itemWidth;
+    private final float[] itemHeight;
+    private final int[] itemCategory; // The category bits of each item.
+    private final int leafCount; // Nodes below this index are leaves, their children are items.
+    private final int nodeCount;
+    private final float[] minX;
+    private final float[] minY;
+    private final float[] maxX;
+    private final float[] maxY;
+    private final int[] firstChild;
+    private final int[] childCount;
+    private final int[] nodeCategory; // Every category found below each node.
+    private final int[] stack;
+
+    /**
+     * Build a tree containing the given rectangles, which are in every category.
+     * The rectangles are not copied, so must not be moved afterwards.
+     * @param rectangles - The rectangles to store.
+     */
+    public StaticRTree(List<Rectangle> rectangles) {
+        this(rectangles, rectangle -> -1);
+    }
+
+    /**
+     * Build a tree containing the given rectangles.
+     * The rectangles are not copied, so must not be moved afterwards.
+     * @param rectangles - The rectangles to store.
+     * @param category - Gives the category bits of each rectangle.
+     */
+    public StaticRTree(List<Rectangle> rectangles, ToIntFunction<Rectangle> category) {
+        items = rectangles.toArray(new Rectangle[0]);
+        sortTileRecursive(items);
+        itemX = new float[items.length];
+        itemY = new float[items.length];
+        itemWidth = new float[items.length];
+        itemHeight = new float[items.length];
+        itemCategory = new int[items.length];
+        for (int i = 0; i < items.length; i++) {
+            itemCategory[i] = category.applyAsInt(items[i]);
+            itemX[i] = items[i].x;
+            itemY[i] = items[i].y;
+            itemWidth[i] = items[i].width;
+            itemHeight[i] = items[i].height;
+        }
+
+        leafCount = Math.max(1, (items.length + NODECAPACITY - 1) / NODECAPACITY);
+        int totalNodes = 0;
+        int depth = 0;
+        for (int level = leafCount; ; level = (level + NODECAPACITY - 1) / NODECAPACITY) {
+            totalNodes += level;
+            depth++;
+            if (level == 1) break;
+        }
+        nodeCount = totalNodes;
+        minX = new float[nodeCount];
+        minY = new float[nodeCount];
+        maxX = new float[nodeCount];
+        maxY = new float[nodeCount];
+        firstChild = new int[nodeCount];
+        childCount = new int[nodeCount];
+        nodeCategory = new int[nodeCount];
+        stack = new int[depth * NODECAPACITY + 1];
+
+        // Leaves
+        for (int node = 0; node < leafCount; node++) {
+            int first = node * NODECAPACITY;
+            int count = Math.max(0, Math.min(NODECAPACITY, items.length - first));
+            firstChild[node] = first;
+            childCount[node] = count;
+            minX[node] = Float.POSITIVE_INFINITY;
+            minY[node] = Float.POSITIVE_INFINITY;
+            maxX[node] = Float.NEGATIVE_INFINITY;
+            maxY[node] = Float.NEGATIVE_INFINITY;
+            for (int i = first; i < first + count; i++) {
+                minX[node] = Math.min(minX[node], items[i].x);
+                minY[node] = Math.min(minY[node], items[i].y);
+                maxX[node] = Math.max(maxX[node], items[i].x + items[i].width);
+                maxY[node] = Math.max(maxY[node], items[i].y + items[i].height);
+                nodeCategory[node] |= itemCategory[i];
+            }
+        }
+
+        // Upper levels. The level below is already in STR order, so neighbouring nodes are grouped together.
+        int levelStart = 0;
+        int levelSize = leafCount;
+        int next = leafCount;
+        while (levelSize > 1) {
+            int parents = (levelSize + NODECAPACITY - 1) / NODECAPACITY;
+            for (int p = 0; p < parents; p++) {
+                int node = next + p;
+                int first = levelStart + p * NODECAPACITY;
+                int count = Math.min(NODECAPACITY, levelStart + levelSize - first);
+                firstChild[node] = first;
+                childCount[node] = count;
+                minX[node] = Float.POSITIVE_INFINITY;
+                minY[node] = Float.POSITIVE_INFINITY;
+                maxX[node] = Float.NEGATIVE_INFINITY;
+                maxY[node] = Float.NEGATIVE_INFINITY;
+                for (int child = first; child < first + count; child++) {
+                    minX[node] = Math.min(minX[node], minX[child]);
+                    minY[node] = Math.min(minY[node], minY[child]);
+                    maxX[node] = Math.max(maxX[node], maxX[child]);
+                    maxY[node] = Math.max(maxY[node], maxY[child]);
+                    nodeCategory[node] |= nodeCategory[child];
+                }
+            }
+            levelStart = next;
+            levelSize = parents;
+            next += parents;
+        }
+    }
+
+    /**
+     * Sort rectangles into STR order: vertical slices by centre x, each slice sorted by centre y.
+     */
+    private static void sortTileRecursive(Rectangle[] rectangles) {
+        int leaves = (rectangles.length + NODECAPACITY - 1) / NODECAPACITY;
+        int slices = (int) Math.ceil(Math.sqrt(leaves));
+        int sliceSize = slices * NODECAPACITY;
+        Arrays.sort(rectangles, Comparator.comparingDouble(r -> r.x + r.width / 2));
+        for (int start = 0; start < rectangles.length; start += sliceSize) {
+            int end = Math.min(rectangles.length, start + sliceSize);
+            Arrays.sort(rectangles, start, end, Comparator.comparingDouble(r -> r.y + r.height / 2));
+        }
+    }
+
+    /**
+     * Check if any rectangle overlaps an area, using the same rules as Rectangle.overlaps.
+     * Stops as soon as one is found.
+     * @param area - The area to check.
+     * @return True if any rectangle overlaps the area.
+     */
+    public boolean overlapsAny(Rectangle area) {
+        return overlapsAny(area.x, area.y, area.width, area.height, -1);
+    }
+
+    /**
+     * Check if any rectangle overlaps an area, using the same rules as Rectangle.overlaps.
+     * Stops as soon as a leaf containing one is found.
+     * @param x - The x co-ordinate of the area.
+     * @param y - The y co-ordinate of the area.
+     * @param width - The width of the area.
+     * @param height - The height of the area.
+     * @param mask - Only rectangles in one of these categories are checked.
+     * @return True if any rectangle overlaps the area.
+     */
+    public boolean overlapsAny(float x, float y, float width, float height, int mask) {
+        if (items.length == 0) return false;
+        float right = x + width;
+        float top = y + height;
+        int stackSize = 0;
+        stack[stackSize++] = nodeCount - 1;
+        while (stackSize > 0) {
+            int node = stack[--stackSize];
+            if ((nodeCategory[node] & mask) == 0) continue;
+            if (!(x < maxX[node] && right > minX[node] && y < maxY[node] && top > minY[node])) continue;
+            int first = firstChild[node];
+            int last = first + childCount[node];
+            if (node < leafCount) {
+                // No early exit or short-circuiting, so the JIT can turn this into straight-line (vector) code.
+                boolean hit = false;
+                for (int i = first; i < last; i++) {
+                    hit |= ((itemCategory[i] & mask) != 0) & (x < itemX[i] + itemWidth[i]) & (right > itemX[i]) & (y < itemY[i] + itemHeight[i]) & (top > itemY[i]);
+                }
+                if (hit) return true;
+            }
+            else {
+                for (int child = first; child < last; child++) {
+                    stack[stackSize++] = child;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Find every rectangle that overlaps an area, using the same rules as Rectangle.overlaps.
+     * @param area - The area to search.
+     * @param results - The list the rectangles are added to.
+     */
+    public void query(Rectangle area, List<Rectangle> results) {
+        query(area, -1, results);
+    }
+
+    /**
+     * Find every rectangle in some categories that overlaps an area, using the same rules as Rectangle.overlaps.
+     * @param area - The area to search.
+     * @param mask - Only rectangles in one of these categories are found.
+     * @param results - The list the rectangles are added to.
+     */
+    public void query(Rectangle area, int mask, List<Rectangle> results) {
+        if (items.length == 0) return;
+        int top = 0;
+        stack[top++] = nodeCount - 1;
+        while (top > 0) {
+            int node = stack[--top];
+            if ((nodeCategory[node] & mask) == 0 || !nodeOverlaps(node, area)) continue;
+            int first = firstChild[node];
+            int last = first + childCount[node];
+            if (node < leafCount) {
+                for (int i = first; i < last; i++) {
+                    if ((itemCategory[i] & mask) != 0 && area.x < itemX[i] + itemWidth[i] && area.x + area.width > itemX[i] && area.y < itemY[i] + itemHeight[i] && area.y + area.height > itemY[i]) {
+                        results.add(items[i]);
+                    }
+                }
+            }
+            else {
+                for (int child = first; child < last; child++) {
+                    stack[top++] = child;
+                }
+            }
+        }
+    }
+
+    /**
+     * Find a rectangle containing a point (edges included).
+     * @param x - The x co-ordinate of the point.
+     * @param y - The y co-ordinate of the point.
+     * @return A rectangle containing the point, or null if there are none.
+     */
+    public Rectangle findAt(float x, float y) {
+        if (items.length == 0) return null;
+        int top = 0;
+        stack[top++] = nodeCount - 1;
+        while (top > 0) {
+            int node = stack[--top];
+            if (x < minX[node] || x > maxX[node] || y < minY[node] || y > maxY[node]) continue;
+            int first = firstChild[node];
+            int last = first + childCount[node];
+            if (node < leafCount) {
+                for (int i = first; i < last; i++) {
+                    if (x >= itemX[i] && x <= itemX[i] + itemWidth[i] && y >= itemY[i] && y <= itemY[i] + itemHeight[i]) return items[i];
+                }
+            }
+            else {
+                for (int child = first; child < last; child++) {
+                    stack[top++] = child;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Cast a ray and find the first rectangle it touches (edges included).
+     * Could be used for line of sight, e.g. wether the Dean can see the player.
+     * @param x - The x co-ordinate the ray starts at.
+     * @param y - The y co-ordinate the ray starts at.
+     * @param dx - How far the ray goes in x.
+     * @param dy - How far the ray goes in y.
+     * @return The fraction (0 to 1) along the ray of the first hit, or 1 if it hits nothing.
+     */
+    public float raycast(float x, float y, float dx, float dy) {
+        return raycast(x, y, dx, dy, -1);
+    }
+
+    /**
+     * Cast a ray and find the first rectangle in some categories it touches (edges included).
+     * @param x - The x co-ordinate the ray starts at.
+     * @param y - The y co-ordinate the ray starts at.
+     * @param dx - How far the ray goes in x.
+     * @param dy - How far the ray goes in y.
+     * @param mask - Only rectangles in one of these categories can block the ray.
+     * @return The fraction (0 to 1) along the ray of the first hit, or 1 if it hits nothing.
+     */
+    public float raycast(float x, float y, float dx, float dy, int mask) {
+        float closest = 1;
+        if (items.length == 0) return closest;
+        float inverseX = 1f / dx; // Infinity when dx is 0, which the slab test handles.
+        float inverseY = 1f / dy;
+        int top = 0;
+        stack[top++] = nodeCount - 1;
+        while (top > 0) {
+            int node = stack[--top];
+            if ((nodeCategory[node] & mask) == 0) continue;
+            if (rayEntry(x, y, inverseX, inverseY, minX[node], minY[node], maxX[node], maxY[node], closest) < 0) continue;
+            int first = firstChild[node];
+            int last = first + childCount[node];
+            if (node < leafCount) {
+                for (int i = first; i < last; i++) {
+                    if ((itemCategory[i] & mask) == 0) continue;
+                    float entry = rayEntry(x, y, inverseX, inverseY, itemX[i], itemY[i], itemX[i] + itemWidth[i], itemY[i] + itemHeight[i], closest);
+                    if (entry >= 0) closest = entry;
+                }
+            }
+            else {
+                for (int child = first; child < last; child++) {
+                    stack[top++] = child;
+                }
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * Slab test between a ray and a box.
+     * @return When (0 to limit) the ray first enters the box, or -1 if it misses or only gets there after the limit.
+     */
+    private static float rayEntry(float x, float y, float inverseX, float inverseY, float boxMinX, float boxMinY, float boxMaxX, float boxMaxY, float limit) {
+        float enter = 0;
+        float exit = limit;
+        if (Float.isInfinite(inverseX)) {
+            if (x < boxMinX || x > boxMaxX) return -1;
+        }
+        else {
+            float t1 = (boxMinX - x) * inverseX;
+            float t2 = (boxMaxX - x) * inverseX;
+            enter = Math.max(enter, Math.min(t1, t2));
+            exit = Math.min(exit, Math.max(t1, t2));
+        }
+        if (Float.isInfinite(inverseY)) {
+            if (y < boxMinY || y > boxMaxY) return -1;
+        }
+        else {
+            float t1 = (boxMinY - y) * inverseY;
+            float t2 = (boxMaxY - y) * inverseY;
+            enter = Math.max(enter, Math.min(t1, t2));
+            exit = Math.min(exit, Math.max(t1, t2));
+        }
+        return enter <= exit ? enter : -1;
+    }
+
+    private boolean nodeOverlaps(int node, Rectangle area) {
+        return area.x < maxX[node] && area.x + area.width > minX[node] && area.y < maxY[node] && area.y + area.height > minY[node];
+    }
+
+    /**
+     * @return How many rectangles are in the tree.
+     */
+    public int size() {
+        return items.length;
+    }
+}
@@ -0,0 +1,77 @@
+package io.github.eng1group9.systems;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+
+/**
+ * Loads each texture and texture atlas once and shares it between everything that draws from it (the map and the entities).
+ * Each user acquires the texture and releases it when done, and it is disposed when the last user releases it.
+ * This keeps spawning entities cheap, as the image is only decoded and sent to the GPU the first time.
+ * The textures are loaded by the {@link LoadingSystem}'s AssetManager, which does the counting.
+ * The atlases are made from the images in assets by the packTextures Gradle task.
+ */
+public class TextureCache {
+    public static final String GAMEATLAS = "atlas/game.atlas"; // The characters, tilesets and missingTexture.
+
+    /**
+     * Get an atlas, loading it now if it was not already loaded (or preloaded by the LoadingSystem).
+     * Every call must be matched by a call to releaseAtlas.
+     * @param atlasPath - The path to the atlas (.atlas file).
+     * @return The shared atlas.
+     */
+    public static TextureAtlas acquireAtlas(String atlasPath) {
+        return LoadingSystem.acquire(atlasPath, TextureAtlas.class);
+    }
+
+    /**
+     * Stop using an atlas, disposing it if nothing else is using it.
+     * @param atlasPath - The path to the atlas (.atlas file).
+     */
+    public static void releaseAtlas(String atlasPath) {
+        release(atlasPath);
+    }
+
+    /**
+     * @param atlasPath - The path to the atlas (.atlas file).
+     * @return How many users the atlas has (including maps using it), 0 if it is not loaded.
+     */
+    public static int getAtlasReferenceCount(String atlasPath) {
+        return getReferenceCount(atlasPath);
+    }
+
+    /**
+     * Get a texture which is not in an atlas, loading it now if it was not already loaded.
+     * Every call must be matched by a call to releaseTexture.
+     * @param texturePath - The path to the image.
+     * @return The shared texture.
+     */
+    public static Texture acquireTexture(String texturePath) {
+        return LoadingSystem.acquire(texturePath, Texture.class);
+    }
+
+    /**
+     * Stop using a texture, disposing it if nothing else is using it.
+     * @param texturePath - The path to the image.
+     */
+    public static void releaseTexture(String texturePath) {
+        release(texturePath);
+    }
+
+    /**
+     * @param texturePath - The path to the image.
+     * @return How many users the texture has, 0 if it is not loaded.
+     */
+    public static int getTextureReferenceCount(String texturePath) {
+        return getReferenceCount(texturePath);
+    }
+
+    private static void release(String path) {
+        LoadingSystem.unload(path);
+    }
+
+    private static int getReferenceCount(String path) {
+        AssetManager assets = LoadingSystem.getAssets();
+        return assets.isLoaded(path) ? assets.getReferenceCount(path) : 0;
+    }
+}
@@ -13,6 +13,8 @@ public class TimerSystem {
     public static float elapsedTime = 0;// time passed in seconds;
     private float timeTooAdd;
     private static final float TIMESTARTVALUE = 300;
+    private static int displayedTimeLeft = Integer.MIN_VALUE; // The time left shown by clockDisplay.
+    private static String clockDisplay; // Only made again when the time left changes, so the clock does not create garbage each frame.
 
     public TimerSystem() {
         elapsedTime = 0;
@@ -22,6 +24,14 @@ public class TimerSystem {
         elapsedTime += amount;
     }
 
+    /**
+     * Give the player more time to escape (or less, if negative). 
+     * @param seconds - How many seconds to add to the time left. 
+     */
+    public static void addTimeLeft(float seconds) {
+        elapsedTime -= seconds;
+    }
+
     /**
      * Add to the timer, so that it goes up by this amount over time
      * @param amount
@@ -59,12 +69,19 @@ public class TimerSystem {
         return (int)(TIMESTARTVALUE - elapsedTime);
     }
 
+    /**
+     * @return The time left as shown on the clock, e.g. "Time Left: 4:05".
+     * The same String is returned until the time left changes (once per second).
+     */
     public static String getClockDisplay() {
         int timeLeft = getTimeLeft();
-        String mins = getMinsDisplay(timeLeft);
-        String secs = getSecsDisplay(timeLeft);
-        return "Time Left: " + mins + ":" + secs;
-        
+        if (timeLeft != displayedTimeLeft || clockDisplay == null) {
+            String mins = getMinsDisplay(timeLeft);
+            String secs = getSecsDisplay(timeLeft);
+            clockDisplay = "Time Left: " + mins + ":" + secs;
+            displayedTimeLeft = timeLeft;
+        }
+        return clockDisplay;
     }
     
     private static String getMinsDisplay(int seconds) {
@@ -1,5 +1,6 @@
 package io.github.eng1group9.systems;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -62,7 +63,7 @@ public class ToastSystem {
         }
     }
 
-    private static List<Toast> toasts = new LinkedList<>(); // List of all active toasts.
+    private static List<Toast> toasts = new ArrayList<>(); // List of all active toasts, oldest first.
 
     /**
      * Add a new toast to the systm, this will sent the user a new temporary message. 
@@ -86,19 +87,15 @@ public class ToastSystem {
 
     /**
      * Look for toasts that have lived for more than 5s and delete them. 
+     * Uses an index loop, as this runs every frame and an iterator would be garbage.
      */
     public static void clearExpiredToasts() {
-        Toast toastToRemove = null;
-
-        for (Toast t : toasts) {
-            if (System.currentTimeMillis() - t.getCreatedDate() > 5000) {
-                toastToRemove = t;
+        long now = System.currentTimeMillis();
+        for (int i = toasts.size() - 1; i >= 0; i--) {
+            if (now - toasts.get(i).getCreatedDate() > 5000) {
+                toasts.remove(i);
             }
         }
-
-        if (toastToRemove != null) {
-            toasts.remove(toastToRemove);
-        }
     }
 
     /**
@@ -1,13 +1,16 @@
 package io.github.eng1group9.systems;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import com.badlogic.gdx.maps.MapLayer;
 import com.badlogic.gdx.maps.MapObject;
 import com.badlogic.gdx.maps.MapObjects;
 import com.badlogic.gdx.maps.objects.RectangleMapObject;
 import com.badlogic.gdx.maps.tiled.TiledMap;
-import com.badlogic.gdx.maps.tiled.TmxMapLoader;
 import com.badlogic.gdx.math.Rectangle;
 
 import io.github.eng1group9.Main;
@@ -21,6 +24,21 @@ import io.github.eng1group9.entities.Player;
  * 
  * triggerType must be in the form T or I
  * for Touch or Interact
+ * 
+ * Touch triggers only go off when the player first steps into them (not every frame they stand there),
+ * and every trigger is kept in a {@link SpatialHashGrid} so only the ones near the player are checked.
+ * Other code can listen for the player entering, staying in and leaving touch triggers with a {@link TriggerListener}.
+ * 
+ * What each trigger does is set by registering a {@link TriggerHandler} for its ID.
+ * A trigger in the map can also be given a "handler" property, naming a handler registered with registerNamedHandler.
+ * 
+ * Simple triggers can be made in the map alone, using these properties (run in this order after any handler):
+ * - hideLayer: layer names seperated by commas, which are hidden.
+ * - removeCollision: collision names seperated by commas, which are removed.
+ * - giveItem: exitKey, chestRoomKey or redPotion (or a list), which are given to the player.
+ * - addToast: a message shown to the player.
+ * - addTime: how many seconds are added to the time left (negative to take time away).
+ * These are compiled into flat arrays when the map is loaded, so running them needs no parsing.
  */
 public class TriggerSystem {
 
@@ -31,6 +49,8 @@ public class TriggerSystem {
         private int ID;
         private Rectangle zone;
         private boolean activateOnTouch = false;
+        private boolean occupied = false; // Wether the player was in the zone at the last check.
+        private int index; // Where the trigger is in the touch or interact list.
 
         public Trigger(int ID, boolean activateOnTouch, Rectangle zone) {
             this.ID = ID;
@@ -57,31 +77,306 @@ public class TriggerSystem {
         public boolean playerInZone(Player player) {
             return player.isColliding(zone);
         }
+
+        public boolean isOccupied() {
+            return occupied;
+        }
+    }
+
+    /**
+     * Gets told when the player moves in and out of touch triggers.
+     * Every method does nothing by default, so only the ones needed have to be written.
+     */
+    public interface TriggerListener {
+        /**
+         * Run on the first frame the player is in a trigger's zone.
+         * @param ID - The ID of the trigger.
+         * @param player - The player who entered.
+         */
+        default void onEnter(int ID, Player player) {}
+
+        /**
+         * Run on every later frame the player is still in the zone.
+         * @param ID - The ID of the trigger.
+         * @param player - The player in the zone.
+         */
+        default void onStay(int ID, Player player) {}
+
+        /**
+         * Run on the first frame the player is no longer in the zone.
+         * @param ID - The ID of the trigger.
+         * @param player - The player who left.
+         */
+        default void onExit(int ID, Player player) {}
+    }
+
+    /**
+     * What happens when a trigger goes off.
+     */
+    @FunctionalInterface
+    public interface TriggerHandler {
+        /**
+         * @param player - The player who set off the trigger.
+         */
+        void handle(Player player);
     }
 
-    private static List<Trigger> touchTriggers = new LinkedList<>();
-    private static List<Trigger> interactTriggers = new LinkedList<>();
+    private static final float GRIDCELLSIZE = 64; // 2x2 tiles (after scaling), about the size of a trigger.
+
+    private static List<Trigger> touchTriggers = new ArrayList<>();
+    private static List<Trigger> interactTriggers = new ArrayList<>();
+    private static SpatialHashGrid<Trigger> triggerGrid = new SpatialHashGrid<>(0, 0, 1, 1, GRIDCELLSIZE);
+    private static final List<Trigger> nearbyTriggers = new ArrayList<>(); // Reused each check so no garbage is made.
+    private static final List<Trigger> occupiedTriggers = new ArrayList<>(); // The touch triggers the player is in.
+    private static final List<TriggerListener> listeners = new ArrayList<>();
+    private static TriggerHandler[] handlers = new TriggerHandler[16]; // The handler for each trigger ID.
+    private static Trigger[] triggersByID = new Trigger[16]; // The trigger with each ID, so it can be removed quickly.
+    private static final Map<String, TriggerHandler> namedHandlers = new HashMap<>();
+    private static int version = 0; // Increased when triggers are loaded or removed, so anything drawing them knows to check them again.
+
+    private static final int HIDELAYER = 0; // Action opcodes.
+    private static final int REMOVECOLLISION = 1;
+    private static final int GIVEITEM = 2;
+    private static final int ADDTOAST = 3;
+    private static final int ADDTIME = 4;
+    private static final String[] ACTIONPROPERTIES = {"hideLayer", "removeCollision", "giveItem", "addToast", "addTime"}; // By opcode.
+    private static final int EXITKEY = 0; // Items for GIVEITEM.
+    private static final int CHESTROOMKEY = 1;
+    private static final int REDPOTION = 2;
+
+    private static int[] actionOpcodes = new int[16]; // Every trigger's actions, one after another.
+    private static String[] actionNames = new String[16]; // The layer / collision name or toast text for each action.
+    private static float[] actionValues = new float[16]; // The item or number of seconds for each action.
+    private static int actionCount = 0;
+    private static int[] firstAction = new int[16]; // Where each trigger ID's actions start.
+    private static int[] triggerActionCount = new int[16]; // How many actions each trigger ID has.
 
-    public static void init(String tmxPath) {
-        List<Trigger> triggers = getTriggers(tmxPath);
+    /**
+     * Load the triggers from a tilemap, replacing any already loaded.
+     * Any handlers named in the map must already be registered with registerNamedHandler.
+     * @param map - The tilemap (.tmx file).
+     * @throws IllegalArgumentException If a trigger names a handler that has not been registered.
+     */
+    public static void init(TiledMap map) {
+        List<Trigger> triggers = getTriggers(map);
+        touchTriggers.clear();
+        interactTriggers.clear();
+        occupiedTriggers.clear();
+        Arrays.fill(triggersByID, null);
+        Rectangle bounds = new Rectangle();
+        boolean first = true;
+        for (Trigger t : triggers) {
+            List<Trigger> list = t.isActivateOnTouch() ? touchTriggers : interactTriggers;
+            t.index = list.size();
+            list.add(t);
+            triggersByID = ensureSize(triggersByID, t.getID());
+            triggersByID[t.getID()] = t;
+            if (first) bounds.set(t.getZone());
+            else bounds.merge(t.getZone());
+            first = false;
+        }
+        triggerGrid = new SpatialHashGrid<>(bounds.x, bounds.y, bounds.width, bounds.height, GRIDCELLSIZE);
         for (Trigger t : triggers) {
-            if (t.isActivateOnTouch()) {
-                touchTriggers.add(t);
+            triggerGrid.insert(t, t.getZone());
+        }
+        bindNamedHandlers(map);
+        compileActions(map);
+        version++;
+    }
+
+    /**
+     * Turn the action properties of every trigger in a map into opcodes and arguments.
+     * Actions are run by ID, so triggers can share an ID (e.g. two zones for the same thing) but only one of them can have actions.
+     * @throws IllegalArgumentException If a trigger gives an item that does not exist, or two triggers with the same ID both have actions.
+     */
+    private static void compileActions(TiledMap map) {
+        actionCount = 0;
+        Arrays.fill(triggerActionCount, 0);
+        for (MapObject mapObject : map.getLayers().get("Triggers").getObjects()) {
+            int ID = Integer.parseInt(mapObject.getName().split(",")[0]);
+            if (ID >= firstAction.length) {
+                int size = Math.max(ID + 1, firstAction.length * 2);
+                firstAction = Arrays.copyOf(firstAction, size);
+                triggerActionCount = Arrays.copyOf(triggerActionCount, size);
             }
-            else {
-                interactTriggers.add(t);
+            int start = actionCount;
+            for (int opcode = 0; opcode < ACTIONPROPERTIES.length; opcode++) {
+                Object property = mapObject.getProperties().get(ACTIONPROPERTIES[opcode]);
+                if (property == null) continue;
+                switch (opcode) {
+                    case HIDELAYER:
+                    case REMOVECOLLISION:
+                        for (String name : property.toString().split(",")) {
+                            addAction(opcode, name.trim(), 0);
+                        }
+                        break;
+                    case GIVEITEM:
+                        for (String item : property.toString().split(",")) {
+                            addAction(opcode, null, parseItem(item.trim()));
+                        }
+                        break;
+                    case ADDTOAST:
+                        addAction(opcode, property.toString(), 0);
+                        break;
+                    case ADDTIME:
+                        addAction(opcode, null, Float.parseFloat(property.toString()));
+                        break;
+                }
             }
+            if (actionCount == start) continue;
+            if (triggerActionCount[ID] > 0) {
+                throw new IllegalArgumentException("More than one trigger with ID " + ID + " has actions, give them different IDs.");
+            }
+            firstAction[ID] = start;
+            triggerActionCount[ID] = actionCount - start;
+        }
+    }
+
+    private static void addAction(int opcode, String name, float value) {
+        if (actionCount == actionOpcodes.length) {
+            int size = actionOpcodes.length * 2;
+            actionOpcodes = Arrays.copyOf(actionOpcodes, size);
+            actionNames = Arrays.copyOf(actionNames, size);
+            actionValues = Arrays.copyOf(actionValues, size);
+        }
+        actionOpcodes[actionCount] = opcode;
+        actionNames[actionCount] = name;
+        actionValues[actionCount] = value;
+        actionCount++;
+    }
+
+    private static int parseItem(String item) {
+        switch (item) {
+            case "exitKey":
+                return EXITKEY;
+            case "chestRoomKey":
+                return CHESTROOMKEY;
+            case "redPotion":
+                return REDPOTION;
+            default:
+                throw new IllegalArgumentException("Unknown item: " + item);
+        }
+    }
+
+    /**
+     * Run the actions compiled from a trigger's properties.
+     * @param ID - The ID of the trigger.
+     * @param player - The player who set off the trigger.
+     */
+    private static void runActions(int ID, Player player) {
+        if (ID >= triggerActionCount.length) return;
+        int first = firstAction[ID];
+        int last = first + triggerActionCount[ID];
+        for (int i = first; i < last; i++) {
+            switch (actionOpcodes[i]) {
+                case HIDELAYER:
+                    RenderingSystem.hideLayer(actionNames[i]);
+                    break;
+                case REMOVECOLLISION:
+                    Main.collisionSystem.removeCollisionByName(actionNames[i]);
+                    break;
+                case GIVEITEM:
+                    giveItem((int) actionValues[i], player);
+                    break;
+                case ADDTOAST:
+                    ToastSystem.addToast(actionNames[i]);
+                    break;
+                case ADDTIME:
+                    TimerSystem.addTimeLeft(actionValues[i]);
+                    break;
+            }
+        }
+    }
+
+    private static void giveItem(int item, Player player) {
+        switch (item) {
+            case EXITKEY:
+                player.giveExitKey();
+                break;
+            case CHESTROOMKEY:
+                player.giveChestRoomKey();
+                break;
+            case REDPOTION:
+                player.giveRedPotion();
+                break;
+        }
+    }
+
+    /**
+     * Register the handlers named by the "handler" property of triggers in a map.
+     */
+    private static void bindNamedHandlers(TiledMap map) {
+        for (MapObject mapObject : map.getLayers().get("Triggers").getObjects()) {
+            String name = mapObject.getProperties().get("handler", String.class);
+            if (name == null) continue;
+            TriggerHandler handler = namedHandlers.get(name);
+            if (handler == null) throw new IllegalArgumentException("Unknown trigger handler: " + name);
+            register(Integer.parseInt(mapObject.getName().split(",")[0]), handler);
         }
     }
 
+    /**
+     * Set what happens when the trigger with an ID goes off, replacing any handler it already had.
+     * @param ID - The ID of the trigger.
+     * @param handler - What should happen.
+     * @throws IllegalArgumentException If the ID is negative.
+     */
+    public static void register(int ID, TriggerHandler handler) {
+        if (ID < 0) throw new IllegalArgumentException("Trigger IDs can't be negative: " + ID);
+        handlers = ensureSize(handlers, ID);
+        handlers[ID] = handler;
+    }
+
+    /**
+     * Make the trigger with an ID do nothing when it goes off.
+     * @param ID - The ID of the trigger.
+     */
+    public static void unregister(int ID) {
+        if (ID >= 0 && ID < handlers.length) handlers[ID] = null;
+    }
+
+    /**
+     * Give a handler a name, so triggers in the map can use it with a "handler" property.
+     * Must be done before init.
+     * @param name - The name used in the map.
+     * @param handler - What should happen.
+     */
+    public static void registerNamedHandler(String name, TriggerHandler handler) {
+        namedHandlers.put(name, handler);
+    }
+
+    /**
+     * @return The array, grown if needed so that index is inside it.
+     */
+    private static <T> T[] ensureSize(T[] array, int index) {
+        if (index < array.length) return array;
+        return Arrays.copyOf(array, Math.max(index + 1, array.length * 2));
+    }
+
+    /**
+     * Start telling a listener when the player enters, stays in or leaves touch triggers.
+     * @param listener - The listener to add.
+     */
+    public static void addListener(TriggerListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Stop telling a listener about touch triggers.
+     * @param listener - The listener to remove.
+     */
+    public static void removeListener(TriggerListener listener) {
+        listeners.remove(listener);
+    }
+
     /**
      * Return a list of all triggers in a tileset. 
      * This should only be used when first loading the tileset. 
-     * @param tmxPath - The path to the tileset (.tmx file).
+     * The zones are copied, so the map is not changed and can be shared.
+     * @param map - The tileset (.tmx file).
      * @return A list of all Triggers. 
      */
-    public static List<Trigger> getTriggers(String tmxPath) {
-        TiledMap map = new TmxMapLoader().load(tmxPath);
+    public static List<Trigger> getTriggers(TiledMap map) {
         MapLayer triggerLayer = map.getLayers().get("Triggers");
         MapObjects triggerObjects = triggerLayer.getObjects();
         List<Trigger> triggers = new LinkedList<>();
@@ -90,8 +385,8 @@ public class TriggerSystem {
             RectangleMapObject recMapObj = (RectangleMapObject) mapObject;
             int ID = Integer.parseInt(recMapObj.getName().split(",")[0]);
 
-            Rectangle zone = recMapObj.getRectangle();
-            zone.set(zone.x * 2, zone.y * 2, zone.width * 2, zone.height * 2);
+            Rectangle mapZone = recMapObj.getRectangle();
+            Rectangle zone = new Rectangle(mapZone.x * 2, mapZone.y * 2, mapZone.width * 2, mapZone.height * 2);
 
             String triggerType = recMapObj.getName().split(",")[1];
             Trigger t = new Trigger(ID, triggerType.equals("T"), zone);
@@ -117,23 +412,43 @@ public class TriggerSystem {
 
     /**
      * Remove a trigger from the system. 
+     * The trigger is looked up by ID and swapped with the last in its list, so no searching or shifting is needed.
      * @param ID - The ID of the trigger which should be removed. 
      * @return True if it was successful. 
      */
     public static boolean remove(int ID) {
-        for (Trigger t : touchTriggers) {
-            if (t.getID() == ID) {
-                touchTriggers.remove(t);
-                return true;
-            }
+        if (ID < 0 || ID >= triggersByID.length || triggersByID[ID] == null) return false;
+        Trigger t = triggersByID[ID];
+        triggersByID[ID] = null;
+
+        List<Trigger> list = t.isActivateOnTouch() ? touchTriggers : interactTriggers;
+        Trigger last = list.remove(list.size() - 1);
+        if (last != t) {
+            list.set(t.index, last);
+            last.index = t.index;
         }
-        for (Trigger t : interactTriggers) {
-            if (t.getID() == ID) {
-                interactTriggers.remove(t);
-                return true;
-            }
+        triggerGrid.remove(t, t.getZone());
+        if (t.occupied) {
+            t.occupied = false;
+            occupiedTriggers.remove(t);
         }
-        return false;
+        version++;
+        return true;
+    }
+
+    /**
+     * @return A number which changes whenever triggers are loaded or removed.
+     */
+    public static int getVersion() {
+        return version;
+    }
+
+    /**
+     * @param t - A trigger.
+     * @return True if the trigger is still in the system (it has not been removed, and no other map has been loaded since).
+     */
+    static boolean isActive(Trigger t) {
+        return t.getID() < triggersByID.length && triggersByID[t.getID()] == t;
     }
 
     /**
@@ -152,8 +467,11 @@ public class TriggerSystem {
      * This is run each time the player presses E.
      */
     public static void checkInteractTriggers(Player player) {
-        for (Trigger t : interactTriggers) {
-            if (t.playerInZone(player)) {
+        nearbyTriggers.clear();
+        triggerGrid.query(player.getHitbox(), nearbyTriggers);
+        for (int i = 0; i < nearbyTriggers.size(); i++) {
+            Trigger t = nearbyTriggers.get(i);
+            if (t.isActivateOnInteract() && t.playerInZone(player)) {
                 System.out.println("Triggered " + t.getID() + "!");
                 trigger(t.getID(), player);
             }
@@ -161,53 +479,52 @@ public class TriggerSystem {
     }
 
     /**
-     * Will check if the given player is staninding in any triggers, and trigger them if so.
+     * Will check if the given player has stepped into any touch triggers, and trigger them if so.
+     * A trigger only goes off again once the player has left it and come back.
      * @param player The player which is being checked.
      * This is run each frame.
      */
     public static void checkTouchTriggers(Player player) {
-        for (Trigger t : touchTriggers) {
-            if (t.playerInZone(player)) {
+        // Triggers the player has left. These may be outside the nearby cells if the player was moved, so all are checked.
+        for (int i = occupiedTriggers.size() - 1; i >= 0; i--) { // indexed so no Iterator is created each frame.
+            Trigger t = occupiedTriggers.get(i);
+            if (!t.playerInZone(player)) {
+                t.occupied = false;
+                occupiedTriggers.remove(i);
+                for (int l = 0; l < listeners.size(); l++) {
+                    listeners.get(l).onExit(t.getID(), player);
+                }
+            }
+        }
+
+        nearbyTriggers.clear();
+        triggerGrid.query(player.getHitbox(), nearbyTriggers);
+        for (int i = 0; i < nearbyTriggers.size(); i++) {
+            Trigger t = nearbyTriggers.get(i);
+            if (!t.isActivateOnTouch() || !t.playerInZone(player)) continue;
+            if (!t.occupied) {
+                t.occupied = true;
+                occupiedTriggers.add(t);
                 trigger(t.getID(), player);
+                for (int l = 0; l < listeners.size(); l++) {
+                    listeners.get(l).onEnter(t.getID(), player);
+                }
+            }
+            else {
+                for (int l = 0; l < listeners.size(); l++) {
+                    listeners.get(l).onStay(t.getID(), player);
+                }
             }
         }
     }
 
     /**
-     * Will act based on which trigger has been activated
+     * Will run the handler registered for the trigger which has been activated, then any actions from the map.
      * @param ID the trigger that has been activated
      */
     public static void trigger(int ID, Player player) {
-        switch (ID) {
-            case 0: // open the main door
-                Main.winGame();
-                break;
-            case 1: // Get the chest room key
-                player.giveChestRoomKey();
-                break;
-            case 2: // Get the scroll
-                Main.getScroll();
-                break;
-            case 3: // Standing by the switch 
-                Main.dropSpikes();
-                break;
-            case 4: // Standing by the mouse hole
-                Main.checkForLongboi();
-                break;
-            case 5: // Standing by the chest
-                player.giveExitKey();
-                break;
-            case 6: // Standing by the chest room door
-                Main.openChestRoomDoor();
-                break;
-            case 7: // Standing by the chest room door
-                Main.openExit();
-                break;
-            case 8: // Pickup red potion.
-                player.giveRedPotion();
-                break;
-            default:
-                break;
-        }
+        if (ID < 0) return;
+        if (ID < handlers.length && handlers[ID] != null) handlers[ID].handle(player);
+        runActions(ID, player);
     }
 }
@@ -0,0 +1,50 @@
+package io.github.eng1group9;
+
+import java.lang.reflect.Proxy;
+
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessFiles;
+import com.badlogic.gdx.backends.headless.mock.graphics.MockGraphics;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+
+/**
+ * sets up enough of libGDX for tests to load the real map and textures, and make meshes, without a window.
+ * the GL calls do nothing, which is fine as nothing is drawn.
+ */
+public class HeadlessGdx {
+
+    /** set up libGDX, safe to call from every test class */
+    public static void setUp() {
+        GdxNativesLoader.load();
+        Gdx.files = new HeadlessFiles();
+        Gdx.graphics = new MockGraphics() {
+            @Override
+            public float getDeltaTime() {
+                return 1 / 60f;
+            }
+        };
+        Gdx.gl = Gdx.gl20 = doNothing(GL20.class);
+        Gdx.app = doNothing(Application.class); // the AssetManager asks what type of app it is running in.
+    }
+
+    /**
+     * @return an implementation of an interface where every method does nothing and returns 0, false or null
+     */
+    public static <T> T doNothing(Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+            (proxy, method, args) -> {
+                Class<?> returnType = method.getReturnType();
+                if (returnType == boolean.class) return false;
+                if (returnType == int.class) return 0;
+                if (returnType == float.class) return 0f;
+                if (returnType == long.class) return 0L;
+                if (returnType == double.class) return 0d;
+                if (returnType == short.class) return (short) 0;
+                if (returnType == byte.class) return (byte) 0;
+                if (returnType == char.class) return (char) 0;
+                return null;
+            }));
+    }
+}
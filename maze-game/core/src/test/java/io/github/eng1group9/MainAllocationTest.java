@@ -0,0 +1,71 @@
+package io.github.eng1group9;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+
+import com.badlogic.gdx.maps.tiled.TiledMap;
+
+import io.github.eng1group9.systems.MapCache;
+import io.github.eng1group9.systems.TimerSystem;
+
+/**
+ * checks that a frame of game logic does not create any garbage,
+ * as garbage collection pauses cause visible stutters.
+ */
+public class MainAllocationTest {
+
+    private static final int WARMUPFRAMES = 2000;
+    private static final int MEASUREDFRAMES = 2000;
+
+    @BeforeClass
+    public static void setUpGdx() {
+        HeadlessGdx.setUp();
+    }
+
+    @After
+    /** reset the static game state so other tests are not affected */
+    public void tearDown() {
+        TimerSystem.elapsedTime = 0f;
+        Main.gameState = 0;
+    }
+
+    /**
+     * @return how many bytes the current thread has allocated so far
+     */
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    @Test
+    /** run the game for a while, then check that more frames allocate nothing */
+    public void testLogic_doesNotAllocate() {
+        TiledMap map = MapCache.acquire(Main.TMXPATH);
+        Main main = new Main();
+        main.initGame(map);
+        Main.startGame();
+        assertEquals("game should be playing", 1, Main.gameState);
+
+        for (int i = 0; i < WARMUPFRAMES; i++) {
+            main.logic();
+        }
+
+        // measuring costs a little, so find out how much and take it off.
+        long overheadStart = allocatedBytes();
+        long overhead = allocatedBytes() - overheadStart;
+
+        long start = allocatedBytes();
+        for (int i = 0; i < MEASUREDFRAMES; i++) {
+            main.logic();
+        }
+        long allocated = allocatedBytes() - start - overhead;
+
+        assertEquals("game should still be playing, an event would allocate", 1, Main.gameState);
+        assertTrue("Main.logic() allocated " + allocated + " bytes over " + MEASUREDFRAMES + " frames", allocated <= 0);
+        MapCache.release(Main.TMXPATH);
+    }
+}
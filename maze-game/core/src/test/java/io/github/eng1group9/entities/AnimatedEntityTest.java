@@ -0,0 +1,87 @@
+package io.github.eng1group9.entities;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.lang.reflect.Proxy;
+
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+
+import io.github.eng1group9.HeadlessGdx;
+
+/**
+ * tests for {@link AnimatedEntity}, checking animations keep time against the shared clock.
+ */
+public class AnimatedEntityTest {
+
+    @BeforeClass
+    public static void setUpGdx() {
+        HeadlessGdx.setUp();
+    }
+
+    @Test
+    /** an entity off screen is not drawn, but its animation should still be at the right place when it comes back */
+    public void testAnimation_offScreen() {
+        Dean dean = new Dean(new Vector2(0, 0), 100, new char[] {'w'});
+        Rectangle view = new Rectangle(5000, 5000, 960, 640);
+        float start = dean.getPlayTime();
+        AnimatedEntity.advanceClock(0.6f);
+        assertFalse("the dean is off screen", dean.draw(null, view, 5480, 5320));
+        assertEquals(start + 0.6f, dean.getPlayTime(), 0.0001f);
+        assertSame(dean.getAnimations().getFrame(0, start + 0.6f), dean.getCurrentFrame());
+
+        dean.pauseAnimation();
+        AnimatedEntity.advanceClock(1);
+        assertEquals("paused animations should not move on", start + 0.6f, dean.getPlayTime(), 0.0001f);
+        dean.playAnimation();
+        AnimatedEntity.advanceClock(0.1f);
+        assertEquals(start + 0.7f, dean.getPlayTime(), 0.0001f);
+        dean.dispose();
+    }
+
+    @Test
+    /** the shared clock is never reset, so a small step should still move animations on after the game has run for days */
+    public void testClock_longRun() {
+        Dean dean = new Dean(new Vector2(0, 0), 100, new char[] {'w'});
+        AnimatedEntity.advanceClock(1000000);
+        float start = dean.getPlayTime();
+        for (int i = 0; i < 60; i++) {
+            AnimatedEntity.advanceClock(1 / 60f);
+        }
+        assertEquals(start + 1, dean.getPlayTime(), 0.0001f);
+        dean.dispose();
+    }
+
+    @Test
+    /** an entity far from the player should keep showing its frame until it is time to pick a new one, and near ones should not */
+    public void testAnimation_farUpdatesLessOften() {
+        TextureRegion[] drawn = new TextureRegion[1];
+        Batch batch = (Batch) Proxy.newProxyInstance(Batch.class.getClassLoader(), new Class<?>[] {Batch.class},
+            (proxy, method, args) -> {
+                if (method.getName().equals("draw") && args[0] instanceof TextureRegion) drawn[0] = (TextureRegion) args[0];
+                return null;
+            });
+        Dean dean = new Dean(new Vector2(0, 0), 100, new char[] {'w'});
+        Rectangle view = new Rectangle(-100, -100, 960, 640);
+
+        assertTrue(dean.draw(batch, view, 500, 300)); // about 560 from the player, less than half the view's diagonal.
+        TextureRegion first = drawn[0];
+        assertSame(dean.getCurrentFrame(), first);
+        AnimatedEntity.advanceClock(0.3f); // past the next frame, but not LODINTERVAL.
+        assertNotSame("the animation should have moved on", first, dean.getCurrentFrame());
+        dean.draw(batch, view, 500, 300);
+        assertSame("far entities keep their frame until nextFramePick", first, drawn[0]);
+        AnimatedEntity.advanceClock(0.3f);
+        dean.draw(batch, view, 500, 300);
+        assertSame(dean.getCurrentFrame(), drawn[0]);
+
+        AnimatedEntity.advanceClock(0.3f);
+        dean.draw(batch, view, 50, 50);
+        assertSame("near entities show the current frame every time", dean.getCurrentFrame(), drawn[0]);
+        dean.dispose();
+    }
+}
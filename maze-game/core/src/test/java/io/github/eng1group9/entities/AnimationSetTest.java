@@ -0,0 +1,71 @@
+package io.github.eng1group9.entities;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+
+import io.github.eng1group9.HeadlessGdx;
+
+/**
+ * tests for {@link AnimationSet}, using a blank 128x128 sheet of 32x32 frames.
+ */
+public class AnimationSetTest {
+
+    private static Texture sheet;
+
+    @BeforeClass
+    /** textures need GL, so give them one where every call does nothing */
+    public static void setUpGdx() {
+        HeadlessGdx.setUp();
+        Pixmap pixmap = new Pixmap(128, 128, Pixmap.Format.RGBA8888);
+        sheet = new Texture(pixmap);
+        pixmap.dispose();
+    }
+
+    @Test
+    /** asking for the same sheet and layout again should give the same set, and a different layout a different one */
+    public void testShared() {
+        TextureRegion region = new TextureRegion(sheet);
+        AnimationSet first = AnimationSet.get(region, new int[] {4, 4, 4, 4}, 32, 32, 0.25f);
+        for (int i = 0; i < 1000; i++) {
+            assertSame(first, AnimationSet.get(new TextureRegion(sheet), new int[] {4, 4, 4, 4}, 32, 32, 0.25f));
+        }
+        assertNotSame(first, AnimationSet.get(region, new int[] {4, 2}, 32, 32, 0.25f));
+        assertNotSame(first, AnimationSet.get(new TextureRegion(sheet, 0, 0, 128, 64), new int[] {4, 4}, 32, 32, 0.25f));
+    }
+
+    @Test
+    /** once a sheet's texture is forgotten, asking for it again should split the sheet again */
+    public void testForget() {
+        TextureRegion region = new TextureRegion(sheet);
+        AnimationSet first = AnimationSet.get(region, new int[] {4, 4, 4, 4}, 32, 32, 0.5f);
+        AnimationSet.forget(sheet);
+        AnimationSet second = AnimationSet.get(region, new int[] {4, 4, 4, 4}, 32, 32, 0.5f);
+        assertNotSame(first, second);
+        assertSame(second, AnimationSet.get(region, new int[] {4, 4, 4, 4}, 32, 32, 0.5f));
+    }
+
+    @Test
+    /** frames should come from the right row, in order, and loop */
+    public void testGetFrame() {
+        AnimationSet set = AnimationSet.get(new TextureRegion(sheet), new int[] {4, 4, 2, 4}, 32, 32, 0.25f);
+        assertEquals(4, set.getAnimationCount());
+        assertEquals(2, set.getFrameCount(2));
+        assertEquals(0, set.getFrame(0, 0).getRegionX());
+        assertEquals(32, set.getFrame(1, 0).getRegionY());
+        assertEquals(96, set.getFrame(1, 0.8f).getRegionX());
+        assertEquals("should loop back to the start", 0, set.getFrame(1, 1.1f).getRegionX());
+        assertEquals("row 2 only has 2 frames", 32, set.getFrame(2, 0.8f).getRegionX());
+        assertEquals(96, set.getFrame(3, 0.8f).getRegionY());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /** asking for more frames than a row has should fail straight away rather than when drawn */
+    public void testTooManyFrames() {
+        AnimationSet.get(new TextureRegion(sheet), new int[] {5}, 32, 32, 0.25f);
+    }
+}
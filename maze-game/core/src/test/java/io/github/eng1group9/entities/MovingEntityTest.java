@@ -0,0 +1,81 @@
+package io.github.eng1group9.entities;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import com.badlogic.gdx.maps.MapLayer;
+import com.badlogic.gdx.maps.objects.RectangleMapObject;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.math.Rectangle;
+
+import io.github.eng1group9.HeadlessGdx;
+import io.github.eng1group9.Main;
+import io.github.eng1group9.systems.CollisionSystem;
+
+/**
+ * tests for {@link MovingEntity}, in a map built in memory with a single door.
+ */
+public class MovingEntityTest {
+
+    private CollisionSystem oldCollisionSystem;
+    private MovingEntity entity;
+    private Rectangle door;
+
+    @BeforeClass
+    public static void setUpGdx() {
+        HeadlessGdx.setUp();
+    }
+
+    @Before
+    /** build a map with just a door, and an entity with a 32x16 hitbox */
+    public void setUp() {
+        TiledMap map = new TiledMap();
+        MapLayer collisionLayer = new MapLayer();
+        collisionLayer.setName("Collision");
+        map.getLayers().add(collisionLayer);
+        RectangleMapObject doorObject = new RectangleMapObject(200, 100, 10, 40);
+        doorObject.setName("door");
+        doorObject.getProperties().put("category", "door");
+        collisionLayer.getObjects().add(doorObject);
+
+        oldCollisionSystem = Main.collisionSystem;
+        Main.collisionSystem = new CollisionSystem();
+        Main.collisionSystem.init(map);
+        door = Main.collisionSystem.getNamedCollision().get("door").get(0);
+
+        entity = new MovingEntity("deanAnimations", new int[] {4, 4, 4, 4}, 32, 32, 100);
+        entity.setHitbox(new Rectangle(0, 0, 32, 16));
+    }
+
+    @After
+    /** put back the game's collision so other tests are not affected */
+    public void tearDown() {
+        entity.dispose();
+        Main.collisionSystem = oldCollisionSystem;
+    }
+
+    @Test
+    /** an entity should stop against a closed door */
+    public void testMoveBy_stopsAtDoor() {
+        entity.setPosition(door.x - 60, door.y + 20);
+        entity.moveBy(100, 0);
+        assertEquals("collision is checked 16 to the right of the entity", door.x - 48, entity.getX(), 0.1f); // the sweep stops just short.
+    }
+
+    @Test
+    /** a door closed on top of an entity should not trap it, it should be able to walk back out */
+    public void testMoveBy_outOfReaddedDoor() {
+        Main.collisionSystem.removeCollisionByName("door");
+        entity.setPosition(door.x - 32, door.y + 20);
+        Main.collisionSystem.addCollisionByName("door");
+        assertFalse("the door should have closed on the entity", Main.collisionSystem.safeToMove(entity.getX(), entity.getY(), entity.getHitbox()));
+
+        float moved = entity.moveBy(-20, 0);
+        assertEquals(20, moved, 0.01f);
+        assertEquals(door.x - 52, entity.getX(), 0.01f);
+        assertTrue(Main.collisionSystem.safeToMove(entity.getX(), entity.getY(), entity.getHitbox()));
+    }
+}
@@ -0,0 +1,267 @@
+package io.github.eng1group9.systems;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.badlogic.gdx.maps.MapLayer;
+import com.badlogic.gdx.maps.objects.RectangleMapObject;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.math.Rectangle;
+
+/**
+ * tests for {@link CollisionSystem}, using a map built in memory so no files or graphics are needed.
+ */
+public class CollisionSystemTest {
+
+    private CollisionSystem collisionSystem;
+    private List<Rectangle> unscaled;
+
+    @Before
+    /** build a map with a door and a scatter of random walls */
+    public void setUp() {
+        TiledMap map = new TiledMap();
+        MapLayer collisionLayer = new MapLayer();
+        collisionLayer.setName("Collision");
+        map.getLayers().add(collisionLayer);
+
+        unscaled = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 300; i++) {
+            Rectangle r = new Rectangle(random.nextFloat() * 480, random.nextFloat() * 320, 2 + random.nextFloat() * 30, 2 + random.nextFloat() * 30);
+            unscaled.add(new Rectangle(r));
+            collisionLayer.getObjects().add(new RectangleMapObject(r.x, r.y, r.width, r.height));
+        }
+        RectangleMapObject door = new RectangleMapObject(500, 100, 10, 40);
+        door.setName("door");
+        door.getProperties().put("category", "door");
+        unscaled.add(new Rectangle(500, 100, 10, 40));
+
+        RectangleMapObject spikes = new RectangleMapObject(200, 150, 48, 16); // in the middle of the walls, sharing cells with them
+        spikes.setName("spikes");
+        unscaled.add(new Rectangle(200, 150, 48, 16));
+        collisionLayer.getObjects().add(spikes);
+        collisionLayer.getObjects().add(door);
+
+        collisionSystem = new CollisionSystem();
+        collisionSystem.init(map);
+    }
+
+    /**
+     * the answer safeToMove should give, found by checking every rectangle
+     */
+    private boolean bruteForceSafe(float x, float y, Rectangle hitbox) {
+        return bruteForceSafe(x, y, hitbox, CollisionSystem.ALL);
+    }
+
+    /**
+     * the answer safeToMove should give for an entity with a collision mask, the door being the only rectangle which is not a wall
+     */
+    private boolean bruteForceSafe(float x, float y, Rectangle hitbox, int mask) {
+        Rectangle test = new Rectangle(x + 16, y + 16, hitbox.width, hitbox.height);
+        Rectangle door = new Rectangle(500, 100, 10, 40);
+        for (Rectangle r : unscaled) {
+            int category = r.equals(door) ? CollisionSystem.DOOR : CollisionSystem.WALL;
+            if ((category & mask) == 0) continue;
+            Rectangle scaled = new Rectangle(r.x * 2, r.y * 2, r.width * 2, r.height * 2);
+            if (scaled.overlaps(test)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * check safeToMove against a full scan at lots of random positions
+     */
+    private void assertMatchesBruteForce(long seed) {
+        Random random = new Random(seed);
+        Rectangle hitbox = new Rectangle(0, 0, 32, 16);
+        for (int i = 0; i < 5000; i++) {
+            float x = random.nextFloat() * 1000 - 20;
+            float y = random.nextFloat() * 700 - 20;
+            assertEquals("safeToMove should match a full scan at " + x + "," + y, bruteForceSafe(x, y, hitbox), collisionSystem.safeToMove(x, y, hitbox));
+        }
+        Rectangle point = new Rectangle(); // the dean's hitbox has no size
+        for (int i = 0; i < 5000; i++) {
+            float x = random.nextFloat() * 1000 - 20;
+            float y = random.nextFloat() * 700 - 20;
+            assertEquals("safeToMove should match a full scan for a point at " + x + "," + y, bruteForceSafe(x, y, point), collisionSystem.safeToMove(x, y, point));
+        }
+    }
+
+    @Test
+    /** the grid and bitmap should give the same answer as checking every rectangle */
+    public void testSafeToMove_matchesBruteForce() {
+        assertMatchesBruteForce(7);
+    }
+
+    @Test
+    /** removing a rectangle should only clear the collision it covered */
+    public void testRemoveCollisionByName_keepsNeighbours() {
+        collisionSystem.removeCollisionByName("spikes");
+        unscaled.remove(unscaled.size() - 1);
+        assertMatchesBruteForce(11);
+    }
+
+    @Test
+    /** a removed rectangle can be added back, e.g. closing a door again */
+    public void testAddCollisionByName_closesAgain() {
+        Rectangle hitbox = new Rectangle(0, 0, 8, 8);
+        for (int i = 0; i < 10; i++) { // toggle it a few times
+            collisionSystem.removeCollisionByName("door");
+            assertFalse("door should be gone", collisionSystem.hasCollisionByName("door"));
+            assertTrue("door should not block while it is open", collisionSystem.safeToMove(1000, 200, hitbox));
+            collisionSystem.addCollisionByName("door");
+            assertTrue("door should be back", collisionSystem.hasCollisionByName("door"));
+            assertFalse("door should block once it is closed", collisionSystem.safeToMove(1000, 200, hitbox));
+        }
+        int size = collisionSystem.getWorldCollision().size();
+        collisionSystem.addCollisionByName("door");
+        assertEquals("adding a door that is already closed should do nothing", size, collisionSystem.getWorldCollision().size());
+
+        collisionSystem.removeCollisionByName("spikes");
+        collisionSystem.addCollisionByName("spikes");
+        assertMatchesBruteForce(13);
+    }
+
+    @Test
+    /** listeners should hear about each rectangle that actually changes, and nothing else */
+    public void testListener() {
+        List<Rectangle> removed = new ArrayList<>();
+        List<Rectangle> added = new ArrayList<>();
+        collisionSystem.addListener(new CollisionSystem.CollisionListener() {
+            @Override
+            public void onRemoved(Rectangle rectangle) { removed.add(rectangle); }
+
+            @Override
+            public void onAdded(Rectangle rectangle) { added.add(rectangle); }
+        });
+        collisionSystem.removeCollisionByName("door");
+        collisionSystem.removeCollisionByName("door"); // already open
+        assertEquals(1, removed.size());
+        assertFalse(collisionSystem.isInWorld(removed.get(0)));
+        collisionSystem.addCollisionByName("door");
+        collisionSystem.addCollisionByName("door"); // already closed
+        assertEquals(1, added.size());
+        assertSame(removed.get(0), added.get(0));
+        assertTrue(collisionSystem.isInWorld(added.get(0)));
+    }
+
+    @Test
+    /** removing a named rectangle should let entities walk through it */
+    public void testRemoveCollisionByName() {
+        Rectangle hitbox = new Rectangle(0, 0, 8, 8);
+        assertFalse("door should block before it is removed", collisionSystem.safeToMove(1000, 200, hitbox));
+        collisionSystem.removeCollisionByName("door");
+        assertTrue("door should not block after it is removed", collisionSystem.safeToMove(1000, 200, hitbox));
+    }
+
+    @Test
+    /** a long move should stop at a thin wall instead of jumping over it */
+    public void testSweep_doesNotTunnelThroughThinWalls() {
+        TiledMap map = new TiledMap();
+        MapLayer collisionLayer = new MapLayer();
+        collisionLayer.setName("Collision");
+        map.getLayers().add(collisionLayer);
+        collisionLayer.getObjects().add(new RectangleMapObject(100, 0, 2, 200)); // 4px wide after scaling
+        CollisionSystem thinWall = new CollisionSystem();
+        thinWall.init(map);
+
+        Rectangle hitbox = new Rectangle(0, 0, 32, 16);
+        assertTrue("the end of the move is clear, so safeToMove alone would allow it", thinWall.safeToMove(300, 100, hitbox));
+        float timeOfImpact = thinWall.sweep(0, 100, hitbox, 300, 0);
+        assertTrue("the sweep should stop before the wall", timeOfImpact < 1);
+        assertEquals("the hitbox should end up against the wall", 200 - 16 - 32, 300 * timeOfImpact, 0.05f);
+        assertEquals("moving along the wall should not be blocked", 1, thinWall.sweep(200 - 16 - 32, 100, hitbox, 0, -50), 0);
+    }
+
+    @Test
+    /** wherever a sweep stops should be safe, and a full sweep should not pass through anything on the way */
+    public void testSweep_endsSomewhereSafe() {
+        Random random = new Random(3);
+        Rectangle hitbox = new Rectangle(0, 0, 32, 16);
+        int checked = 0;
+        while (checked < 2000) {
+            float x = random.nextFloat() * 1000 - 20;
+            float y = random.nextFloat() * 700 - 20;
+            if (!bruteForceSafe(x, y, hitbox)) continue;
+            checked++;
+            float dx = random.nextFloat() * 200 - 100;
+            float dy = random.nextBoolean() ? 0 : random.nextFloat() * 200 - 100;
+            float timeOfImpact = collisionSystem.sweep(x, y, hitbox, dx, dy);
+            assertTrue("should stop somewhere safe", bruteForceSafe(x + dx * timeOfImpact, y + dy * timeOfImpact, hitbox));
+            if (timeOfImpact == 1) {
+                for (int step = 1; step < 100; step++) {
+                    float t = step / 100f;
+                    assertTrue("a full sweep should not pass through collision", bruteForceSafe(x + dx * t, y + dy * t, hitbox));
+                }
+            }
+        }
+    }
+
+    @Test
+    /** checking lots of hitboxes in one call, each with its own mask, should give the same answers as checking them one at a time */
+    public void testSafeToMove_batchMatchesSingle() {
+        Random random = new Random(17);
+        int[] masks = {CollisionSystem.ALL, CollisionSystem.WALL, CollisionSystem.DOOR, CollisionSystem.HAZARD, CollisionSystem.WALL | CollisionSystem.DOOR};
+        int count = 2000;
+        float[] x = new float[count];
+        float[] y = new float[count];
+        float[] width = new float[count];
+        float[] height = new float[count];
+        int[] mask = new int[count];
+        boolean[] safe = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            x[i] = random.nextFloat() * 1000 - 20;
+            y[i] = random.nextFloat() * 700 - 20;
+            width[i] = random.nextBoolean() ? 32 : 0;
+            height[i] = random.nextBoolean() ? 16 : 0;
+            mask[i] = masks[random.nextInt(masks.length)];
+        }
+        for (int i = 0; i < masks.length; i++) { // one hitbox in the door for each mask, so the masks are seen to matter.
+            x[i] = 1000;
+            y[i] = 200;
+            mask[i] = masks[i];
+        }
+        collisionSystem.safeToMove(x, y, width, height, mask, count, safe);
+        for (int i = 0; i < count; i++) {
+            Rectangle hitbox = new Rectangle(0, 0, width[i], height[i]);
+            assertEquals("batch result " + i + " should match safeToMove", collisionSystem.safeToMove(x[i], y[i], hitbox, mask[i]), safe[i]);
+            assertEquals("batch result " + i + " should match a full scan", bruteForceSafe(x[i], y[i], hitbox, mask[i]), safe[i]);
+        }
+        assertFalse("the door should block everything", safe[0]);
+        assertTrue("the door should not block a ghost", safe[1]);
+    }
+
+    @Test
+    /** an entity whose mask leaves out doors should walk through the door, but still be stopped by walls */
+    public void testSafeToMove_mask() {
+        Rectangle hitbox = new Rectangle(0, 0, 8, 8);
+        assertFalse("door should block everything by default", collisionSystem.safeToMove(1000, 200, hitbox));
+        assertTrue("door should not block a ghost", collisionSystem.safeToMove(1000, 200, hitbox, CollisionSystem.WALL));
+        assertFalse("door should block anything with doors in its mask", collisionSystem.safeToMove(1000, 200, hitbox, CollisionSystem.DOOR));
+        assertEquals("a ghost should sweep straight through the door", 1, collisionSystem.sweep(960, 200, hitbox, 100, 0, CollisionSystem.WALL), 0);
+        assertTrue("the door should stop a normal sweep", collisionSystem.sweep(960, 200, hitbox, 100, 0, CollisionSystem.ALL) < 1);
+
+        Random random = new Random(23);
+        for (int i = 0; i < 2000; i++) {
+            float x = random.nextFloat() * 1000 - 20;
+            float y = random.nextFloat() * 700 - 20;
+            assertEquals("with every category the mask should change nothing", collisionSystem.safeToMove(x, y, hitbox), collisionSystem.safeToMove(x, y, hitbox, CollisionSystem.ALL));
+            if (x > 700) continue; // walls only go up to 1020 after scaling, away from the door
+            assertEquals("only the door is not a wall", bruteForceSafe(x, y, hitbox), collisionSystem.safeToMove(x, y, hitbox, CollisionSystem.WALL));
+        }
+    }
+
+    @Test
+    /** category properties from the map should turn into the right bits */
+    public void testParseCategory() {
+        assertEquals(CollisionSystem.WALL, CollisionSystem.parseCategory(null));
+        assertEquals(CollisionSystem.DOOR, CollisionSystem.parseCategory("door"));
+        assertEquals(CollisionSystem.WALL | CollisionSystem.HAZARD, CollisionSystem.parseCategory("Wall, hazard"));
+        assertEquals(6, CollisionSystem.parseCategory(6));
+    }
+}
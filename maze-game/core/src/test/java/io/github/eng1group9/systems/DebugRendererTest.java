@@ -0,0 +1,81 @@
+package io.github.eng1group9.systems;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import com.badlogic.gdx.maps.MapLayer;
+import com.badlogic.gdx.maps.objects.RectangleMapObject;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.math.Rectangle;
+
+import io.github.eng1group9.HeadlessGdx;
+
+/**
+ * tests that the debug overlay's mesh follows the collision as doors open and close.
+ */
+public class DebugRendererTest {
+
+    @BeforeClass
+    public static void setUpGdx() {
+        HeadlessGdx.setUp();
+    }
+
+    /**
+     * @return a collision system for a map with lots of walls and a door
+     */
+    private static CollisionSystem createCollisionSystem(int walls) {
+        TiledMap map = new TiledMap();
+        MapLayer collisionLayer = new MapLayer();
+        collisionLayer.setName("Collision");
+        map.getLayers().add(collisionLayer);
+        Random random = new Random(7);
+        for (int i = 0; i < walls; i++) {
+            collisionLayer.getObjects().add(new RectangleMapObject(random.nextFloat() * 4000, random.nextFloat() * 4000, 16, 16));
+        }
+        RectangleMapObject door = new RectangleMapObject(500, 100, 10, 40);
+        door.setName("door");
+        collisionLayer.getObjects().add(door);
+        CollisionSystem collisionSystem = new CollisionSystem();
+        collisionSystem.init(map);
+        return collisionSystem;
+    }
+
+    @Test
+    /** opening a door should hide it in the mesh, and closing it should show it again */
+    public void testDoor() {
+        CollisionSystem collisionSystem = createCollisionSystem(100);
+        DebugRenderer debugRenderer = new DebugRenderer(collisionSystem);
+        debugRenderer.update();
+        Rectangle door = collisionSystem.getNamedCollision().get("door").get(0);
+        Rectangle wall = collisionSystem.getWorldCollision().get(0);
+        assertTrue(debugRenderer.isShown(door));
+
+        collisionSystem.removeCollisionByName("door");
+        assertFalse("the door is open", debugRenderer.isShown(door));
+        assertTrue("walls should not change", debugRenderer.isShown(wall));
+        collisionSystem.addCollisionByName("door");
+        assertTrue("the door is closed again", debugRenderer.isShown(door));
+
+        collisionSystem.removeCollisionByName("door");
+        debugRenderer.dispose();
+        collisionSystem.addCollisionByName("door"); // no longer listening, so this should not touch the disposed mesh
+    }
+
+    @Test
+    /** loading the collision again should build the mesh again, keeping doors that are open hidden */
+    public void testReload() {
+        CollisionSystem collisionSystem = createCollisionSystem(50000);
+        DebugRenderer debugRenderer = new DebugRenderer(collisionSystem);
+        debugRenderer.update();
+        collisionSystem.removeCollisionByName("door");
+        Rectangle door = collisionSystem.getNamedCollision().get("door").get(0);
+        assertFalse(debugRenderer.isShown(door));
+        debugRenderer.onLoaded(); // as if a new map was loaded, with the door already open
+        debugRenderer.update();
+        assertFalse("the door was open when the mesh was built", debugRenderer.isShown(door));
+        debugRenderer.dispose();
+    }
+}
@@ -0,0 +1,71 @@
+package io.github.eng1group9.systems;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import com.badlogic.gdx.math.Rectangle;
+
+/**
+ * tests for {@link EntityBroadphase}, comparing the pairs found against checking every pair.
+ */
+public class EntityBroadphaseTest {
+
+    @Test
+    /** agents wandering around should give the same pairs as a full check, tick after tick */
+    public void testUpdate_matchesBruteForce() {
+        Random random = new Random(3);
+        EntityBroadphase broadphase = new EntityBroadphase();
+        Rectangle[] rectangles = new Rectangle[200];
+        Object[] owners = new Object[rectangles.length];
+        for (int i = 0; i < rectangles.length; i++) {
+            rectangles[i] = new Rectangle(random.nextFloat() * 960, random.nextFloat() * 640, 32, 16);
+            owners[i] = i % 3 == 2 ? owners[i - 1] : new Object(); // some owners have two rectangles, like a dean's reach.
+            broadphase.add(rectangles[i], owners[i], i % 3 == 2 ? EntityBroadphase.REACH : EntityBroadphase.HITBOX);
+        }
+
+        for (int tick = 0; tick < 50; tick++) {
+            for (Rectangle r : rectangles) {
+                r.x += random.nextFloat() * 8 - 4;
+                r.y += random.nextFloat() * 8 - 4;
+            }
+            broadphase.update();
+
+            boolean[][] found = new boolean[rectangles.length][rectangles.length];
+            for (int p = 0; p < broadphase.getPairCount(); p++) {
+                int a = broadphase.getPairA(p);
+                int b = broadphase.getPairB(p);
+                assertFalse("pair reported twice", found[a][b]);
+                found[a][b] = true;
+                found[b][a] = true;
+            }
+            for (int a = 0; a < rectangles.length; a++) {
+                for (int b = a + 1; b < rectangles.length; b++) {
+                    boolean expected = owners[a] != owners[b] && rectangles[a].overlaps(rectangles[b]);
+                    assertEquals(expected, found[a][b]);
+                }
+            }
+        }
+    }
+
+    @Test
+    /** the reach of one owner touching the hitbox of another should be found either way round */
+    public void testIsOverlapping() {
+        EntityBroadphase broadphase = new EntityBroadphase();
+        Object dean = new Object();
+        Object player = new Object();
+        broadphase.add(new Rectangle(0, 0, 96, 96), dean, EntityBroadphase.REACH);
+        Rectangle hitbox = new Rectangle(200, 10, 32, 16);
+        broadphase.add(hitbox, player, EntityBroadphase.HITBOX);
+
+        broadphase.update();
+        assertFalse(broadphase.isOverlapping(dean, EntityBroadphase.REACH, player, EntityBroadphase.HITBOX));
+
+        hitbox.x = 50;
+        broadphase.update();
+        assertTrue(broadphase.isOverlapping(dean, EntityBroadphase.REACH, player, EntityBroadphase.HITBOX));
+        assertTrue(broadphase.isOverlapping(player, EntityBroadphase.HITBOX, dean, EntityBroadphase.REACH));
+        assertFalse(broadphase.isOverlapping(dean, EntityBroadphase.HITBOX, player, EntityBroadphase.HITBOX));
+    }
+}
@@ -0,0 +1,59 @@
+package io.github.eng1group9.systems;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+
+import io.github.eng1group9.HeadlessGdx;
+
+/**
+ * checks that loading can be spread over frames, and that what was loaded is handed on to the caches.
+ */
+public class LoadingSystemTest {
+
+    private static final String TMXPATH = "World/testMap.tmx";
+
+    @BeforeClass
+    public static void setUpGdx() {
+        HeadlessGdx.setUp();
+    }
+
+    @Test
+    /** a preloaded map should be handed to the MapCache, and disposed once both have let go of it */
+    public void testPreload() {
+        int atlasReferences = TextureCache.getAtlasReferenceCount(TextureCache.GAMEATLAS); // the player and dean from other tests may hold it.
+        LoadingSystem.preload(TMXPATH, TiledMap.class);
+        int frames = 0;
+        while (!LoadingSystem.update()) {
+            frames++;
+            assertTrue("loading never finished", frames < 10000);
+        }
+        assertEquals(1, LoadingSystem.getProgress(), 0.0001f);
+
+        TiledMap map = MapCache.acquire(TMXPATH);
+        LoadingSystem.releasePreloaded();
+        assertEquals("the cache should still hold the map", 1, MapCache.getReferenceCount(TMXPATH));
+        assertNotNull(map.getLayers().get("Collision"));
+        MapCache.release(TMXPATH);
+        assertEquals(0, MapCache.getReferenceCount(TMXPATH));
+        assertEquals("the map's atlas should go with it", atlasReferences, TextureCache.getAtlasReferenceCount(TextureCache.GAMEATLAS));
+    }
+
+    @Test
+    /** acquiring a map which is already loaded should not finish what the loading screen has queued */
+    public void testAcquire_loadedDoesNotBlock() {
+        TiledMap map = MapCache.acquire(TMXPATH);
+        LoadingSystem.preload("missingTexture.png", Texture.class);
+        assertSame(map, MapCache.acquire(TMXPATH));
+        assertEquals(2, MapCache.getReferenceCount(TMXPATH));
+        assertFalse("the queued texture should still be waiting", LoadingSystem.getAssets().isLoaded("missingTexture.png"));
+
+        MapCache.release(TMXPATH);
+        MapCache.release(TMXPATH);
+        LoadingSystem.getAssets().finishLoading();
+        LoadingSystem.releasePreloaded();
+    }
+}
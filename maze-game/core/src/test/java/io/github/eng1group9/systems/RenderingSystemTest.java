@@ -0,0 +1,27 @@
+package io.github.eng1group9.systems;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * tests for how the world frame is scaled up to the window.
+ */
+public class RenderingSystemTest {
+
+    @Test
+    /** big windows should get a whole number scale, so every pixel is the same size */
+    public void testFrameScale_wholeNumber() {
+        assertEquals("the default window", 1, RenderingSystem.getFrameScale(960, 640, 960, 640), 0.0001f);
+        assertEquals("1080p should not stretch to 1.6875", 1, RenderingSystem.getFrameScale(1920, 1080, 960, 640), 0.0001f);
+        assertEquals(2, RenderingSystem.getFrameScale(1920, 1280, 960, 640), 0.0001f);
+        assertEquals("1440p should not stretch to 2.25", 2, RenderingSystem.getFrameScale(2560, 1440, 960, 640), 0.0001f);
+        assertEquals("4k", 3, RenderingSystem.getFrameScale(3840, 2160, 960, 640), 0.0001f);
+    }
+
+    @Test
+    /** windows smaller than the frame should shrink it to fit, as there is no whole number scale that fits */
+    public void testFrameScale_stretched() {
+        assertEquals(0.9375f, RenderingSystem.getFrameScale(900, 600, 960, 640), 0.0001f);
+        assertEquals(0.5f, RenderingSystem.getFrameScale(480, 400, 960, 640), 0.0001f);
+    }
+}
@@ -0,0 +1,43 @@
+package io.github.eng1group9.systems;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * tests for how {@link ShaderTileMapRenderer} packs tiles into its index textures.
+ */
+public class ShaderTileMapRendererTest {
+
+    /**
+     * unpack a tile the same way the fragment shader does
+     * @return {x, y, flipped horizontally, flipped vertically}, -1s if there is no tile
+     */
+    private static int[] unpack(int rgba) {
+        int r = rgba >>> 24, g = (rgba >>> 16) & 255, b = (rgba >>> 8) & 255, a = rgba & 255;
+        if (a < 128) return new int[] {-1, -1, -1, -1};
+        int flipV = g >= 128 ? 1 : 0;
+        g -= flipV * 128;
+        int flipH = g >= 64 ? 1 : 0;
+        g -= flipH * 64;
+        int yHigh = g / 8;
+        return new int[] {r + (g - yHigh * 8) * 256, b + yHigh * 256, flipH, flipV};
+    }
+
+    @Test
+    /** positions anywhere in a 2048px atlas, and the flips, should come back out of the shader unchanged */
+    public void testPackTile() {
+        int[][] tiles = {{0, 0}, {18, 36}, {255, 256}, {511, 497}, {1300, 2047}, {2047, 5}};
+        for (int[] tile : tiles) {
+            assertArrayEquals(new int[] {tile[0], tile[1], 0, 0}, unpack(ShaderTileMapRenderer.packTile(tile[0], tile[1], false, false)));
+            assertArrayEquals(new int[] {tile[0], tile[1], 1, 0}, unpack(ShaderTileMapRenderer.packTile(tile[0], tile[1], true, false)));
+            assertArrayEquals(new int[] {tile[0], tile[1], 1, 1}, unpack(ShaderTileMapRenderer.packTile(tile[0], tile[1], true, true)));
+        }
+        assertArrayEquals("no tile", new int[] {-1, -1, -1, -1}, unpack(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /** tiles past what 11 bits can hold should be refused rather than drawn from the wrong place */
+    public void testPackTile_atlasTooBig() {
+        ShaderTileMapRenderer.packTile(2048, 0, false, false);
+    }
+}
@@ -0,0 +1,57 @@
+package io.github.eng1group9.systems;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.badlogic.gdx.math.Rectangle;
+
+/**
+ * tests for {@link SpatialHashGrid} queries.
+ */
+public class SpatialHashGridTest {
+
+    @Test
+    /** an item spanning many cells should only be returned once, and equal items should both be returned */
+    public void testQuery_eachItemOnce() {
+        SpatialHashGrid<Rectangle> grid = new SpatialHashGrid<>(0, 0, 640, 640, 64);
+        Rectangle big = new Rectangle(10, 10, 300, 300);
+        Rectangle a = new Rectangle(100, 100, 8, 8);
+        Rectangle b = new Rectangle(100, 100, 8, 8); // equal to a, but a different rectangle
+        grid.insert(big, big);
+        grid.insert(a, a);
+        grid.insert(b, b);
+
+        List<Rectangle> results = new ArrayList<>();
+        grid.query(new Rectangle(0, 0, 640, 640), results);
+        assertEquals(3, results.size());
+        assertEquals(1, countSame(results, big));
+        assertEquals(1, countSame(results, a));
+        assertEquals(1, countSame(results, b));
+
+        results.clear();
+        grid.query(new Rectangle(200, 200, 200, 200), results); // starts part way into big
+        assertEquals(1, results.size());
+        assertSame(big, results.get(0));
+
+        grid.remove(a, a);
+        results.clear();
+        grid.query(new Rectangle(90, 90, 30, 30), results);
+        assertEquals(2, results.size());
+        assertEquals(0, countSame(results, a));
+        assertEquals(1, countSame(results, b));
+    }
+
+    /**
+     * @return how many times an item is in a list, by identity
+     */
+    private static int countSame(List<Rectangle> list, Rectangle item) {
+        int count = 0;
+        for (Rectangle r : list) {
+            if (r == item) count++;
+        }
+        return count;
+    }
+}
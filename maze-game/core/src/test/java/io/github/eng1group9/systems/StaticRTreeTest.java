@@ -0,0 +1,135 @@
+package io.github.eng1group9.systems;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import com.badlogic.gdx.math.Rectangle;
+
+/**
+ * tests for {@link StaticRTree}, comparing every query against checking each rectangle.
+ */
+public class StaticRTreeTest {
+
+    private List<Rectangle> rectangles;
+    private StaticRTree tree;
+
+    @Before
+    /** build a tree from a mix of huge and tiny rectangles, like the generated maps */
+    public void setUp() {
+        rectangles = new ArrayList<>();
+        Random random = new Random(5);
+        for (int i = 0; i < 5000; i++) {
+            boolean huge = random.nextInt(50) == 0;
+            float size = huge ? 200 + random.nextFloat() * 2000 : 1 + random.nextFloat() * 20;
+            rectangles.add(new Rectangle(random.nextFloat() * 10000, random.nextFloat() * 10000, size, huge ? 5 : size));
+        }
+        tree = new StaticRTree(rectangles);
+    }
+
+    /**
+     * sort rectangles so two result lists can be compared
+     */
+    private static List<Rectangle> sorted(List<Rectangle> list) {
+        List<Rectangle> copy = new ArrayList<>(list);
+        Collections.sort(copy, Comparator.comparingInt(System::identityHashCode));
+        return copy;
+    }
+
+    @Test
+    /** overlap queries should find exactly the rectangles a full scan finds */
+    public void testQuery_matchesBruteForce() {
+        Random random = new Random(9);
+        for (int i = 0; i < 500; i++) {
+            Rectangle area = new Rectangle(random.nextFloat() * 10000, random.nextFloat() * 10000, random.nextFloat() * 500, random.nextFloat() * 500);
+            List<Rectangle> expected = new ArrayList<>();
+            for (Rectangle r : rectangles) {
+                if (r.overlaps(area)) expected.add(r);
+            }
+            List<Rectangle> actual = new ArrayList<>();
+            tree.query(area, actual);
+            assertEquals("query should find the same rectangles", sorted(expected), sorted(actual));
+            assertEquals("overlapsAny should agree with query", !expected.isEmpty(), tree.overlapsAny(area));
+        }
+    }
+
+    @Test
+    /** point queries should only return a rectangle when one contains the point */
+    public void testFindAt_matchesBruteForce() {
+        Random random = new Random(10);
+        for (int i = 0; i < 2000; i++) {
+            float x = random.nextFloat() * 10000;
+            float y = random.nextFloat() * 10000;
+            boolean expected = false;
+            for (Rectangle r : rectangles) {
+                if (r.contains(x, y)) expected = true;
+            }
+            Rectangle found = tree.findAt(x, y);
+            assertEquals("findAt should find a rectangle when there is one", expected, found != null);
+            if (found != null) assertTrue("the rectangle found should contain the point", found.contains(x, y));
+        }
+    }
+
+    @Test
+    /** rays should stop at the same place as testing each rectangle */
+    public void testRaycast_matchesBruteForce() {
+        Random random = new Random(11);
+        for (int i = 0; i < 2000; i++) {
+            float x = random.nextFloat() * 10000;
+            float y = random.nextFloat() * 10000;
+            float dx = random.nextInt(4) == 0 ? 0 : random.nextFloat() * 2000 - 1000;
+            float dy = random.nextInt(4) == 0 ? 0 : random.nextFloat() * 2000 - 1000;
+            if (dx == 0 && dy == 0) continue;
+
+            float expected = 1;
+            for (Rectangle r : rectangles) {
+                expected = (float) Math.min(expected, rayEntry(x, y, dx, dy, r));
+            }
+            float actual = tree.raycast(x, y, dx, dy);
+            assertEquals("raycast should stop at the first rectangle hit", expected, actual, 0.0001f);
+        }
+    }
+
+    /**
+     * when a ray first touches a rectangle, worked out one axis at a time in doubles
+     * @return the fraction along the ray, or 1 if it misses
+     */
+    private static double rayEntry(float x, float y, float dx, float dy, Rectangle r) {
+        double enter = 0;
+        double exit = 1;
+        if (dx == 0) {
+            if (x < r.x || x > r.x + r.width) return 1;
+        }
+        else {
+            double t1 = (r.x - (double) x) / dx;
+            double t2 = (r.x + (double) r.width - x) / dx;
+            enter = Math.max(enter, Math.min(t1, t2));
+            exit = Math.min(exit, Math.max(t1, t2));
+        }
+        if (dy == 0) {
+            if (y < r.y || y > r.y + r.height) return 1;
+        }
+        else {
+            double t1 = (r.y - (double) y) / dy;
+            double t2 = (r.y + (double) r.height - y) / dy;
+            enter = Math.max(enter, Math.min(t1, t2));
+            exit = Math.min(exit, Math.max(t1, t2));
+        }
+        return enter <= exit ? enter : 1;
+    }
+
+    @Test
+    /** an empty tree should never find anything */
+    public void testEmptyTree() {
+        StaticRTree empty = new StaticRTree(new ArrayList<Rectangle>());
+        assertFalse(empty.overlapsAny(new Rectangle(0, 0, 100, 100)));
+        assertNull(empty.findAt(1, 1));
+        assertEquals(1, empty.raycast(0, 0, 10, 10), 0);
+    }
+}
@@ -0,0 +1,66 @@
+package io.github.eng1group9.systems;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.math.Vector2;
+
+import io.github.eng1group9.HeadlessGdx;
+import io.github.eng1group9.entities.Dean;
+import io.github.eng1group9.entities.Player;
+
+/**
+ * checks that entities share their textures through the {@link TextureCache} instead of loading their own.
+ */
+public class TextureCacheTest {
+
+    @BeforeClass
+    public static void setUpGdx() {
+        HeadlessGdx.setUp();
+    }
+
+    @Test
+    /** replacing the player and spawning deans should share the one atlas, and give it back when disposed */
+    public void testEntities_shareTextures() {
+        Player player = new Player(new Vector2(0, 0), 100);
+        int references = TextureCache.getAtlasReferenceCount(TextureCache.GAMEATLAS);
+        for (int i = 0; i < 10; i++) { // the same as the game restarting.
+            player.dispose();
+            player = new Player(new Vector2(0, 0), 100);
+        }
+        assertEquals("the old players should have given the atlas back", references, TextureCache.getAtlasReferenceCount(TextureCache.GAMEATLAS));
+
+        Dean[] deans = new Dean[100];
+        for (int i = 0; i < deans.length; i++) {
+            deans[i] = new Dean(new Vector2(0, 0), 100, new char[] {'w'});
+        }
+        assertSame("the deans should share one set of animations", deans[0].getAnimations(), deans[deans.length - 1].getAnimations());
+        for (Dean dean : deans) {
+            dean.dispose();
+            dean.dispose(); // disposing twice should not release twice
+        }
+        assertEquals(references, TextureCache.getAtlasReferenceCount(TextureCache.GAMEATLAS));
+        player.dispose();
+    }
+
+    @Test
+    /** acquiring an atlas which is already loaded should count the user without finishing other queued loads */
+    public void testAcquire_loadedDoesNotBlock() {
+        TextureAtlas atlas = TextureCache.acquireAtlas(TextureCache.GAMEATLAS);
+        int references = TextureCache.getAtlasReferenceCount(TextureCache.GAMEATLAS);
+        LoadingSystem.preload("missingTexture.png", Texture.class);
+
+        assertSame(atlas, TextureCache.acquireAtlas(TextureCache.GAMEATLAS));
+        assertEquals(references + 1, TextureCache.getAtlasReferenceCount(TextureCache.GAMEATLAS));
+        assertFalse("the queued texture should still be waiting", LoadingSystem.getAssets().isLoaded("missingTexture.png"));
+
+        TextureCache.releaseAtlas(TextureCache.GAMEATLAS);
+        TextureCache.releaseAtlas(TextureCache.GAMEATLAS);
+        assertEquals(references - 1, TextureCache.getAtlasReferenceCount(TextureCache.GAMEATLAS));
+        LoadingSystem.getAssets().finishLoading();
+        LoadingSystem.releasePreloaded();
+    }
+}
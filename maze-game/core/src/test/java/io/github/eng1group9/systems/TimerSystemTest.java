@@ -0,0 +1,31 @@
+package io.github.eng1group9.systems;
+
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * tests for the clock display in {@link TimerSystem}.
+ */
+public class TimerSystemTest {
+
+    @After
+    /** reset the static timer so other tests are not affected */
+    public void tearDown() {
+        TimerSystem.elapsedTime = 0f;
+    }
+
+    @Test
+    /** the clock should only make a new string when the second shown changes */
+    public void testGetClockDisplay_onlyChangesEachSecond() {
+        TimerSystem.elapsedTime = 54.1f; // 245.9s left
+        String display = TimerSystem.getClockDisplay();
+        assertEquals("Time Left: 4:05", display);
+
+        TimerSystem.elapsedTime = 54.7f; // still 245s left
+        assertSame("same second, so the same string", display, TimerSystem.getClockDisplay());
+
+        TimerSystem.elapsedTime = 55.2f;
+        assertEquals("Time Left: 4:04", TimerSystem.getClockDisplay());
+    }
+}
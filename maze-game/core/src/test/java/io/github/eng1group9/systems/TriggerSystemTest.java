@@ -0,0 +1,125 @@
+package io.github.eng1group9.systems;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import com.badlogic.gdx.maps.MapLayer;
+import com.badlogic.gdx.maps.objects.RectangleMapObject;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+
+/**
+ * tests for {@link TriggerSystem}, using a map built in memory so no files or graphics are needed.
+ */
+public class TriggerSystemTest {
+
+    private TiledMap map;
+    private int handled;
+    private int toastsBefore;
+
+    @Before
+    /** build a map with a few touch and interact triggers, one using a named handler */
+    public void setUp() {
+        map = new TiledMap();
+        MapLayer triggerLayer = new MapLayer();
+        triggerLayer.setName("Triggers");
+        map.getLayers().add(triggerLayer);
+        String[] names = {"0,T", "1,T", "2,I", "3,T", "40,I"};
+        for (int i = 0; i < names.length; i++) {
+            RectangleMapObject trigger = new RectangleMapObject(i * 20, 0, 10, 10);
+            trigger.setName(names[i]);
+            triggerLayer.getObjects().add(trigger);
+            TriggerSystem.unregister(Integer.parseInt(names[i].split(",")[0])); // the game's own handlers may still be registered
+        }
+        triggerLayer.getObjects().get(4).getProperties().put("handler", "countHandled");
+        triggerLayer.getObjects().get(3).getProperties().put("addTime", "15");
+        triggerLayer.getObjects().get(3).getProperties().put("addToast", "Bonus time, well done!");
+
+        handled = 0;
+        TriggerSystem.registerNamedHandler("countHandled", player -> handled++);
+        TriggerSystem.init(map);
+        toastsBefore = ToastSystem.getToasts().size();
+    }
+
+    @After
+    /** reset the static timer and take off any toasts the triggers added, so other tests are not affected */
+    public void tearDown() {
+        TimerSystem.elapsedTime = 0f;
+        while (ToastSystem.getToasts().size() > toastsBefore) {
+            ToastSystem.getToasts().remove(ToastSystem.getToasts().size() - 1);
+        }
+    }
+
+    @Test
+    /** removing triggers by ID should keep the other triggers, and not find them twice */
+    public void testRemove() {
+        assertEquals(3, TriggerSystem.getTouchTriggers().size());
+        assertTrue(TriggerSystem.remove(0));
+        assertFalse("already removed", TriggerSystem.remove(0));
+        assertFalse("no trigger has this ID", TriggerSystem.remove(99));
+        assertEquals(2, TriggerSystem.getTouchTriggers().size());
+        assertTrue(TriggerSystem.remove(3));
+        assertEquals(1, TriggerSystem.getTouchTriggers().get(0).getID());
+        assertTrue(TriggerSystem.remove(1));
+        assertTrue(TriggerSystem.getTouchTriggers().isEmpty());
+        assertEquals(2, TriggerSystem.getInteractTriggers().size());
+    }
+
+    @Test
+    /** triggers should run whatever handler is registered for them, and nothing once it is unregistered */
+    public void testRegister() {
+        TriggerSystem.trigger(40, null);
+        assertEquals("the handler named in the map should be bound", 1, handled);
+
+        TriggerSystem.register(2, player -> handled += 10);
+        TriggerSystem.trigger(2, null);
+        assertEquals(11, handled);
+
+        TriggerSystem.unregister(2);
+        TriggerSystem.trigger(2, null);
+        TriggerSystem.trigger(500, null); // far past the end of the table
+        assertEquals(11, handled);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /** a negative ID can never go off, so registering one is a mistake */
+    public void testRegister_negativeID() {
+        TriggerSystem.register(-1, player -> handled++);
+    }
+
+    @Test
+    /** actions written as map properties should run when the trigger goes off */
+    public void testTrigger_runsMapActions() {
+        TimerSystem.elapsedTime = 100;
+        int toasts = toastsBefore;
+        TriggerSystem.trigger(3, null);
+        assertEquals("addTime should take the seconds off the elapsed time", 85, TimerSystem.elapsedTime, 0.0001f);
+        assertEquals(toasts + 1, ToastSystem.getToasts().size());
+        assertEquals("Bonus time, well done!", ToastSystem.getToasts().get(toasts).getText());
+
+        TriggerSystem.trigger(1, null); // no actions or handler
+        assertEquals(85, TimerSystem.elapsedTime, 0.0001f);
+    }
+
+    @Test
+    /** a second trigger sharing an ID should not take away the first one's actions, and both having actions is an error */
+    public void testInit_sharedID() {
+        RectangleMapObject other = new RectangleMapObject(200, 0, 10, 10);
+        other.setName("3,I");
+        map.getLayers().get("Triggers").getObjects().add(other);
+        TriggerSystem.init(map);
+        TimerSystem.elapsedTime = 100;
+        TriggerSystem.trigger(3, null);
+        assertEquals("the actions should still run", 85, TimerSystem.elapsedTime, 0.0001f);
+
+        other.getProperties().put("addTime", "5");
+        try {
+            TriggerSystem.init(map);
+            fail("two triggers with ID 3 have actions");
+        }
+        catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("3"));
+        }
+    }
+}